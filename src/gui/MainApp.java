@@ -2,19 +2,35 @@ package gui;
 
 import model.Position;
 import model.Room;
+import maps.RoomFile;
+import maps.RoomGenerator;
 import robot.RobotManager;
+import simulation.SimulationEngine;
+import simulation.SimulationInput;
+import simulation.SimulationListener;
+import simulation.SimulationRecorder;
+import simulation.SimulationReplay;
+import simulation.SimulationResult;
 import observer.*;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MainApp {
     private JFrame frame;
     private RoomView roomView;
     private Room room;
     private RobotManager manager;
-    private Timer timer;
+    // El motor corre en su propio hilo; la GUI solo se suscribe a sus ticks
+    private SimulationEngine engine;
+    private final AtomicBoolean uiUpdatePending = new AtomicBoolean(false);
+    private JButton startStop;
+    private SimulationRecorder recorder;
 
     // UI fields
     private JLabel frontSensorLabel;
@@ -26,12 +42,15 @@ public class MainApp {
     private JLabel robotStateLabel;
     private JSpinner batteryCapacitySpinner;
     private JTextPane logTextPane;
-    private int turnCounter = 0;
+    // Lo incrementa el hilo del bus y lo pone a cero el botón de limpiar
+    private final AtomicInteger turnCounter = new AtomicInteger();
 
     // Observadores del patrón Observer
     private RobotEventLogger eventLogger;
     private RobotStatisticsObserver statsObserver;
     private RobotAlertObserver alertObserver;
+    // Los observadores lentos (consola, log de la GUI) reciben los eventos en otro hilo
+    private AsyncRobotEventBus eventBus;
 
     public MainApp() {
         SwingUtilities.invokeLater(this::createAndShowGui);
@@ -48,13 +67,25 @@ public class MainApp {
         JPanel sizeBox = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JTextField dimX = new JTextField("20", 4);
         JTextField dimY = new JTextField("20", 4);
+        JComboBox<RoomGenerator.Layout> layoutBox = new JComboBox<>(RoomGenerator.Layout.values());
         JButton generate = new JButton("Generar");
+        JButton saveMap = new JButton("Guardar mapa");
+        JButton loadMap = new JButton("Cargar mapa");
+        JButton record = new JButton("Grabar");
+        JButton replay = new JButton("Reproducir");
         sizeBox.add(new JLabel("Filas:"));
         sizeBox.add(dimX);
         sizeBox.add(new JLabel("Columnas:"));
         sizeBox.add(dimY);
+        sizeBox.add(layoutBox);
         sizeBox.add(generate);
 
+        JPanel mapBox = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        mapBox.add(saveMap);
+        mapBox.add(loadMap);
+        mapBox.add(record);
+        mapBox.add(replay);
+
         // Panel de configuración de batería
         JPanel batteryConfig = new JPanel(new FlowLayout(FlowLayout.LEFT));
         batteryConfig.setBorder(BorderFactory.createTitledBorder("Configuración"));
@@ -67,12 +98,13 @@ public class MainApp {
         });
         speed.setSelectedIndex(1);
 
-        JButton startStop = new JButton("Start");
+        startStop = new JButton("Start");
         JToggleButton placeCharger = new JToggleButton("Colocar cargador ⚡");
         JToggleButton placeObs = new JToggleButton("Obstáculo fijo");
         JToggleButton placeCat = new JToggleButton("Colocar gato 🐱");
 
         controls.add(sizeBox);
+        controls.add(mapBox);
         controls.add(batteryConfig);
 
         // Panel de sensores
@@ -137,7 +169,7 @@ public class MainApp {
         JButton clearLogsBtn = new JButton("Limpiar Logs");
         clearLogsBtn.addActionListener(e -> {
             logTextPane.setText("");
-            turnCounter = 0;
+            turnCounter.set(0);
         });
         logPanel.add(clearLogsBtn, BorderLayout.SOUTH);
 
@@ -148,91 +180,21 @@ public class MainApp {
         generate.addActionListener((ActionEvent e) -> {
             int w = Integer.parseInt(dimX.getText());
             int h = Integer.parseInt(dimY.getText());
-            int batteryCapacity = (Integer) batteryCapacitySpinner.getValue();
-
-            room = new Room(w, h);
-            roomView.setRoom(room);
-            manager = new RobotManager(room, new Position(0, 0), batteryCapacity);
-
-            // Colocar cargador por defecto en (0,0) usando Strategy
-            Position chargerPos = new Position(0, 0);
-            room.addDynamicObstacle(new model.DynamicObstacle(chargerPos, new model.ChargerStrategy()));
-            manager.getRobot().setCharger(chargerPos);
-
-            // Inicializar y registrar observadores del patrón Observer
-            eventLogger = new RobotEventLogger(true);
-            statsObserver = new RobotStatisticsObserver();
-            alertObserver = new RobotAlertObserver();
-
-            manager.getRobot().addRobotObserver(eventLogger);
-            manager.getRobot().addRobotObserver(statsObserver);
-            manager.getRobot().addRobotObserver(alertObserver);
-
-            // Observador especial para la GUI que registra en formato específico
-            observer.RobotObserver guiLogObserver = event -> {
-                String timestamp = getCurrentTime();
-                String sensorOrigin = determineSensorOrigin(event);
-                String signalType = event.getType().name();
-                String currentState = manager.getRobot().getCurrentState() != null ?
-                    manager.getRobot().getCurrentState().getClass().getSimpleName() : "NULL";
-                String nextState = determineNextState(event);
-
-                String logEntry = String.format("[%03d] - [%s] - [%s] - [%s] - %s -> %s\n",
-                    ++turnCounter, timestamp, sensorOrigin, signalType, currentState, nextState);
-
-                Color color = getColorForState(currentState, event.getType());
-
-                SwingUtilities.invokeLater(() -> {
-                    appendColoredLog(logEntry, color);
-                });
-            };
-            manager.getRobot().addRobotObserver(guiLogObserver);
-
-            System.out.println("=== Observadores registrados ===");
-            System.out.println("Total: " + manager.getRobot().getRobotObserverCount());
-            System.out.println("Capacidad de batería: " + batteryCapacity);
-
-            roomView.setListener(new RoomView.RoomViewListener() {
-                @Override
-                public void onChargerPlaced(Position p) {
-                    // Eliminar cargador anterior
-                    Position oldCharger = room.getChargerPosition();
-                    if (oldCharger != null) {
-                        room.removeDynamicObstacleAt(oldCharger);
-                    }
-                    // Agregar nuevo cargador usando Strategy
-                    room.addDynamicObstacle(new model.DynamicObstacle(p, new model.ChargerStrategy()));
-                    manager.getRobot().setCharger(p);
-                    System.out.println("⚡ Cargador colocado en " + p);
-                    roomView.repaint();
-                }
-
-                @Override
-                public void onObstacleToggled(Position p) {
-                    if (manager != null && manager.getRobot() != null) {
-                        manager.getRobot().setPath(null);
-                        roomView.setPath(null);
-                    }
-                }
-
-                @Override
-                public void onCellClicked(Position p) {
-                    // noop
-                }
-
-                @Override
-                public void onCatPlaced(Position p) {
-                    room.addDynamicObstacle(new model.DynamicObstacle(p, new model.CatObstacleStrategy()));
-                    System.out.println("🐱 Gato colocado en " + p);
-                    roomView.repaint();
-                }
-            });
-
-            frame.pack();
-            updateSensorLabels();
-            updateObserverLabels();
+            RoomGenerator.Layout layout = (RoomGenerator.Layout) layoutBox.getSelectedItem();
+            if (layout == null || layout == RoomGenerator.Layout.OPEN) {
+                installRoom(new Room(w, h));
+            } else {
+                // Semilla nueva en cada pulsación; el cargador lo coloca el generador en una celda libre
+                installRoom(RoomGenerator.generate(w, h, new RoomGenerator.Options()
+                    .layout(layout).seed(System.nanoTime()).cats(1)));
+            }
         });
 
+        saveMap.addActionListener(e -> saveMap());
+        loadMap.addActionListener(e -> loadMap());
+        record.addActionListener(e -> startRecording());
+        replay.addActionListener(e -> loadReplay());
+
         placeCharger.addActionListener(e -> {
             roomView.setPlacingCharger(placeCharger.isSelected());
             if (placeCharger.isSelected()) {
@@ -264,8 +226,9 @@ public class MainApp {
         });
 
         startStop.addActionListener(e -> {
-            if (timer != null && timer.isRunning()) {
-                timer.stop();
+            if (engine == null) return;
+            if (engine.isRunning()) {
+                engine.stop();
                 startStop.setText("Start");
             } else {
                 int ms = 300;
@@ -274,19 +237,8 @@ public class MainApp {
                     if (sel.contains("100")) ms = 100;
                     if (sel.contains("600")) ms = 600;
                 }
-                timer = new Timer(ms, ev -> {
-                    if (manager != null) {
-                        manager.tick();
-                        if (manager.getRobot() != null) {
-                            roomView.setRobotPosition(manager.getRobot().getCurrent());
-                            roomView.setPath(manager.getRobot().getPath());
-                            updateSensorLabels();
-                            updateObserverLabels();
-                        }
-                        roomView.repaint();
-                    }
-                });
-                timer.start();
+                engine.setTargetRate(1000.0 / ms);
+                engine.start();
                 startStop.setText("Stop");
             }
         });
@@ -299,72 +251,99 @@ public class MainApp {
         generate.doClick();
     }
 
-    private void updateSensorLabels() {
-        if (manager == null) return;
-        sensors.SensorReading fr = manager.getFrontReading();
-        sensors.SensorReading lr = manager.getLeftReading();
-        sensors.SensorReading rr = manager.getRightReading();
-        frontSensorLabel.setText(formatReading(fr));
-        leftSensorLabel.setText(formatReading(lr));
-        rightSensorLabel.setText(formatReading(rr));
+    /**
+     * Lo que muestra la GUI tras un tick, copiado en el hilo que modifica la
+     * simulación (el del motor mientras corre), para que el EDT no lea la
+     * habitación ni el robot.
+     */
+    private static final class UiSnapshot {
+        final Position position;
+        final List<Position> path;
+        final sensors.SensorReading front;
+        final sensors.SensorReading left;
+        final sensors.SensorReading right;
+        final int batteryLevel;
+        final int maxBattery;
+        final int batteryPct;
+        final String observersInfo;
+        final String stateName;
+        final int events;
+        final int moves;
+        final int cats;
+        final double coverage;
+        final RoomView.Changes changes;
+
+        UiSnapshot(RobotManager manager, RoomView view, AsyncRobotEventBus bus, RobotStatisticsObserver stats) {
+            robot.Robot r = manager.getRobot();
+            Room room = manager.getRoom();
+            position = r.getCurrent();
+            path = r.getPath();
+            front = manager.getFrontReading();
+            left = manager.getLeftReading();
+            right = manager.getRightReading();
+            batteryLevel = r.getBatteryLevel();
+            maxBattery = r.getMaxBattery();
+            batteryPct = r.getBatteryPercentage();
+            observersInfo = "Sensores-> Front:[" + manager.getFrontObserversInfo() + "] "
+                + "Left:[" + manager.getLeftObserversInfo() + "] "
+                + "Right:[" + manager.getRightObserversInfo() + "] | "
+                + "Robot Observers: " + r.getRobotObserverCount()
+                + " (bus: " + bus.getObserverCount() + ")";
+            stateName = r.getCurrentState() != null ? r.getCurrentState().getClass().getSimpleName() : "(none)";
+            events = stats.getStateChanges() + stats.getPositionChanges();
+            moves = stats.getPositionChanges();
+            cats = room.getDynamicObstacles().size();
+            coverage = room.getCoveragePercentage();
+            changes = view.captureChanges(room);
+        }
+    }
 
-        // Actualizar batería
-        if (manager.getRobot() != null) {
-            int batteryPct = manager.getRobot().getBatteryPercentage();
-            int batteryLevel = manager.getRobot().getBatteryLevel();
-            int maxBattery = manager.getRobot().getMaxBattery();
-
-            String batteryIcon = "🔋";
-            Color batteryColor = new Color(50, 205, 50);
-
-            if (batteryPct <= 20) {
-                batteryIcon = "🪫";
-                batteryColor = Color.RED;
-            } else if (batteryPct <= 50) {
-                batteryIcon = "🔋";
-                batteryColor = Color.ORANGE;
-            }
+    private void showSnapshot(UiSnapshot s) {
+        roomView.setRobotPosition(s.position);
+        roomView.setPath(s.path);
+        roomView.applyChanges(s.changes);
+        updateSensorLabels(s);
+        updateObserverLabels(s);
+    }
 
-            batteryLabel.setText(String.format("%s Batería: %d/%d (%d%%)",
-                batteryIcon, batteryLevel, maxBattery, batteryPct));
-            batteryLabel.setForeground(batteryColor);
+    private void updateSensorLabels(UiSnapshot s) {
+        frontSensorLabel.setText(formatReading(s.front));
+        leftSensorLabel.setText(formatReading(s.left));
+        rightSensorLabel.setText(formatReading(s.right));
 
-            // Actualizar barra de progreso
-            batteryProgressBar.setValue(batteryPct);
-            batteryProgressBar.setForeground(batteryColor);
-            batteryProgressBar.setString(batteryLevel + "/" + maxBattery + " (" + batteryPct + "%)");
+        // Actualizar batería
+        int batteryPct = s.batteryPct;
+        int batteryLevel = s.batteryLevel;
+        int maxBattery = s.maxBattery;
+
+        String batteryIcon = "🔋";
+        Color batteryColor = new Color(50, 205, 50);
+
+        if (batteryPct <= 20) {
+            batteryIcon = "🪫";
+            batteryColor = Color.RED;
+        } else if (batteryPct <= 50) {
+            batteryIcon = "🔋";
+            batteryColor = Color.ORANGE;
         }
-    }
 
-    private void updateObserverLabels() {
-        if (manager == null) return;
+        batteryLabel.setText(String.format("%s Batería: %d/%d (%d%%)",
+            batteryIcon, batteryLevel, maxBattery, batteryPct));
+        batteryLabel.setForeground(batteryColor);
 
-        // Información de observadores de sensores
-        StringBuilder sb = new StringBuilder();
-        sb.append("Sensores-> Front:[").append(manager.getFrontObserversInfo()).append("] ");
-        sb.append("Left:[").append(manager.getLeftObserversInfo()).append("] ");
-        sb.append("Right:[").append(manager.getRightObserversInfo()).append("] | ");
-        sb.append("Robot Observers: ").append(manager.getRobot().getRobotObserverCount());
-        observersLabel.setText(sb.toString());
-
-        // Estado del robot
-        robot.Robot r = manager.getRobot();
-        String stateInfo = "Estado: ";
-        if (r.getCurrentState() != null) {
-            stateInfo += r.getCurrentState().getClass().getSimpleName();
-        } else {
-            stateInfo += "(none)";
-        }
+        // Actualizar barra de progreso
+        batteryProgressBar.setValue(batteryPct);
+        batteryProgressBar.setForeground(batteryColor);
+        batteryProgressBar.setString(batteryLevel + "/" + maxBattery + " (" + batteryPct + "%)");
+    }
 
-        // Agregar estadísticas de observadores
-        if (statsObserver != null) {
-            stateInfo += String.format(" | Eventos: %d | Movimientos: %d | Gatos: %d",
-                statsObserver.getStateChanges() + statsObserver.getPositionChanges(),
-                statsObserver.getPositionChanges(),
-                manager.getRoom().getDynamicObstacles().size());
-        }
+    private void updateObserverLabels(UiSnapshot s) {
+        // Información de observadores de sensores
+        observersLabel.setText(s.observersInfo);
 
-        robotStateLabel.setText(stateInfo);
+        // Estado del robot y estadísticas de observadores
+        robotStateLabel.setText(String.format("Estado: %s | Eventos: %d | Movimientos: %d | Gatos: %d | Cobertura: %.1f%%",
+            s.stateName, s.events, s.moves, s.cats, s.coverage));
     }
 
     private String formatReading(sensors.SensorReading r) {
@@ -373,6 +352,228 @@ public class MainApp {
                " obstacle=" + r.isObstacleDetected();
     }
 
+    /**
+     * Muestra la habitación y crea el robot y sus observadores sobre ella.
+     * La habitación recibe una semilla nueva y, si aún no tiene cargador, se
+     * coloca uno en (0,0).
+     */
+    private void installRoom(Room newRoom) {
+        int batteryCapacity = (Integer) batteryCapacitySpinner.getValue();
+        // Gatos distintos en cada sesión; la grabación guarda esta semilla
+        newRoom.setSeed(System.nanoTime());
+
+        // Colocar cargador por defecto en (0,0) usando Strategy (los mapas cargados ya traen el suyo)
+        Position chargerPos = newRoom.getChargerPosition();
+        if (chargerPos == null) {
+            chargerPos = new Position(0, 0);
+            newRoom.addDynamicObstacle(new model.DynamicObstacle(chargerPos, new model.ChargerStrategy()));
+        }
+        RobotManager newManager = new RobotManager(newRoom, chargerPos, batteryCapacity);
+        newManager.getRobot().setCharger(chargerPos);
+        installEngine(new SimulationEngine(newManager));
+    }
+
+    /**
+     * Muestra la habitación del motor y registra en él la GUI y los observadores.
+     */
+    private void installEngine(SimulationEngine newEngine) {
+        if (engine != null) engine.stop();
+        stopRecording();
+        startStop.setText("Start");
+        engine = newEngine.setQuiet(false);
+        manager = engine.getManager();
+        room = manager.getRoom();
+        roomView.setRoom(room);
+        roomView.setRoomEditor(engine);
+
+        // Inicializar y registrar observadores del patrón Observer
+        eventLogger = new RobotEventLogger(true);
+        statsObserver = new RobotStatisticsObserver();
+        alertObserver = new RobotAlertObserver();
+
+        if (eventBus != null) eventBus.close();
+        eventBus = new AsyncRobotEventBus();
+        // El robot solo publica en el bus los tipos que piden sus observadores
+        eventBus.subscribeTo(manager.getRobot()::addRobotObserver);
+        eventBus.addObserver(eventLogger);
+        eventBus.addObserver(statsObserver);
+        eventBus.addObserver(alertObserver, RobotAlertObserver.TYPES);
+
+        // El hilo del motor solo usa estas referencias, no los campos que cambia el EDT
+        SimulationEngine current = engine;
+        AsyncRobotEventBus bus = eventBus;
+        RobotStatisticsObserver stats = statsObserver;
+        engine.addListener(new SimulationListener() {
+            @Override
+            public void onTick(SimulationEngine source, long tick) {
+                // Como mucho una actualización pendiente en el EDT, con una instantánea tomada en el hilo del motor
+                if (!uiUpdatePending.compareAndSet(false, true)) return;
+                UiSnapshot snapshot = new UiSnapshot(source.getManager(), roomView, bus, stats);
+                SwingUtilities.invokeLater(() -> {
+                    uiUpdatePending.set(false);
+                    if (source == engine) showSnapshot(snapshot);
+                });
+            }
+
+            @Override
+            public void onFinished(SimulationResult result) {
+                System.out.println("⏹ Simulación detenida: " + result);
+                UiSnapshot snapshot = new UiSnapshot(current.getManager(), roomView, bus, stats);
+                SwingUtilities.invokeLater(() -> {
+                    if (engine != null && !engine.isRunning()) startStop.setText("Start");
+                    if (current == engine) showSnapshot(snapshot);
+                });
+            }
+        });
+
+        // Observador especial para la GUI que registra en formato específico
+        observer.RobotObserver guiLogObserver = event -> {
+            String timestamp = getCurrentTime();
+            String sensorOrigin = determineSensorOrigin(event);
+            String signalType = event.getType().name();
+            // El estado viaja en el evento: el robot ya puede estar en otro
+            String currentState = robot.state.RobotState.nameOf(event.getStateId());
+            String nextState = determineNextState(event);
+
+            String logEntry = String.format("[%03d] - [%s] - [%s] - [%s] - %s -> %s\n",
+                turnCounter.incrementAndGet(), timestamp, sensorOrigin, signalType, currentState, nextState);
+
+            Color color = getColorForState(currentState, event.getType());
+
+            SwingUtilities.invokeLater(() -> {
+                appendColoredLog(logEntry, color);
+            });
+        };
+        eventBus.addObserver(guiLogObserver);
+
+        System.out.println("=== Observadores registrados ===");
+        System.out.println("Total: " + eventBus.getObserverCount() + " (bus asíncrono)");
+        System.out.println("Capacidad de batería: " + manager.getRobot().getMaxBattery());
+
+        roomView.setListener(new RoomView.RoomViewListener() {
+            // Las ediciones pasan por el motor como entradas para poder grabarlas
+            @Override
+            public void onChargerPlaced(Position p) {
+                // Cambia el cargador anterior por el nuevo (Strategy) y se lo indica al robot
+                engine.submit(SimulationInput.placeCharger(p));
+                roomView.repaint();
+            }
+
+            @Override
+            public void onObstacleToggled(Position p) {
+                engine.submit(SimulationInput.setObstacle(p, room.isObstacle(p)));
+                SwingUtilities.invokeLater(() -> roomView.setPath(null));
+            }
+
+            @Override
+            public void onCellClicked(Position p) {
+                // noop
+            }
+
+            @Override
+            public void onCatPlaced(Position p) {
+                engine.submit(SimulationInput.placeCat(p));
+                roomView.repaint();
+            }
+        });
+
+        frame.pack();
+        showSnapshot(new UiSnapshot(manager, roomView, eventBus, statsObserver));
+    }
+
+    private void saveMap() {
+        if (room == null) return;
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        // Se guarda entre dos ticks, en el hilo del motor si está en marcha
+        Room target = room;
+        java.io.File file = chooser.getSelectedFile();
+        engine.execute(() -> {
+            try {
+                RoomFile.save(target, file.toPath());
+                System.out.println("💾 Mapa guardado en " + file);
+            } catch (IOException ex) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                    "No se pudo guardar el mapa: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+            }
+        });
+    }
+
+    private void loadMap() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            installRoom(RoomFile.load(chooser.getSelectedFile().toPath()));
+            System.out.println("📂 Mapa cargado de " + chooser.getSelectedFile());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame, "No se pudo cargar el mapa: " + ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Graba la simulación actual desde el principio (ver SimulationRecorder).
+     */
+    private void startRecording() {
+        if (engine == null) return;
+        if (engine.isRunning() || engine.getTick() > 0) {
+            JOptionPane.showMessageDialog(frame, "La grabación debe empezar antes del primer tick: "
+                + "genera o carga una habitación y graba antes de pulsar Start.", "Grabar", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            stopRecording();
+            recorder = SimulationRecorder.start(engine, chooser.getSelectedFile().toPath());
+            System.out.println("⏺ Grabando en " + recorder.getDirectory());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame, "No se pudo empezar la grabación: " + ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void stopRecording() {
+        if (recorder == null) return;
+        // Si el motor aún se está parando, la grabación se guarda sola al terminar
+        if (!engine.isRunning()) {
+            try {
+                recorder.close();
+            } catch (IOException ex) {
+                System.err.println("No se pudo guardar la grabación: " + ex.getMessage());
+            }
+        }
+        recorder = null;
+    }
+
+    /**
+     * Carga una grabación y la deja lista para reproducirla con Start.
+     */
+    private void loadReplay() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            SimulationReplay replay = SimulationReplay.load(chooser.getSelectedFile().toPath());
+            replay.getEngine().setMaxTicks(replay.getEndTick());
+            replay.getEngine().addListener(new SimulationListener() {
+                @Override
+                public void onFinished(SimulationResult result) {
+                    if (result.getReason() == SimulationResult.StopReason.STOPPED) return;
+                    System.out.println(replay.matchesRecording()
+                        ? "✅ La reproducción coincide con la grabación"
+                        : "❌ La reproducción NO coincide con la grabación");
+                }
+            });
+            installEngine(replay.getEngine());
+            System.out.println("▶ Reproducción de " + chooser.getSelectedFile() + " hasta el tick " + replay.getEndTick());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame, "No se pudo cargar la grabación: " + ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private String getCurrentTime() {
         java.time.LocalTime now = java.time.LocalTime.now();
         return String.format("%02d:%02d", now.getHour(), now.getMinute());
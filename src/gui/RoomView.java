@@ -9,6 +9,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class RoomView extends JPanel {
     private Room room;
@@ -26,10 +27,20 @@ public class RoomView extends JPanel {
     }
 
     private RoomViewListener listener;
+    // Dónde se aplican los cambios hechos con el ratón (el hilo del motor si está en marcha)
+    private Executor roomEditor = Runnable::run;
 
     private Position robotPosition = null;
     private List<Position> path = new ArrayList<>();
 
+    // Qué se pinta en cada celda (y*width+x). Es una copia de la habitación que
+    // solo cambia con applyChanges, así que pintar no lee la habitación
+    static final byte DIRTY = 0, CLEANED = 1, OBSTACLE = 2, CAT = 3, CHARGER = 4, CHARGER_MARK = 5;
+    private byte[] cellKinds;
+
+    // Última captura (la hace el hilo que modifica la habitación): su habitación y versión
+    private volatile Changes lastCapture;
+
     public RoomView(int cols, int rows, int cellSize) {
         this.cellSize = cellSize;
         setPreferredSize(new Dimension(cols * cellSize, rows * cellSize));
@@ -43,9 +54,23 @@ public class RoomView extends JPanel {
 
     public void setListener(RoomViewListener l) { this.listener = l; }
 
+    /**
+     * Ejecutor para las ediciones de la habitación hechas con el ratón; las
+     * llamadas al listener de colocación se hacen también dentro de él.
+     */
+    public void setRoomEditor(Executor editor) { this.roomEditor = editor != null ? editor : Runnable::run; }
+
+    /**
+     * Muestra otra habitación. Se lee entera aquí, así que se debe llamar
+     * con la simulación parada.
+     */
     public void setRoom(Room room) {
         this.room = room;
-        if (room != null) setPreferredSize(new Dimension(room.getWidth() * cellSize, room.getHeight() * cellSize));
+        this.cellKinds = null;
+        if (room != null) {
+            setPreferredSize(new Dimension(room.getWidth() * cellSize, room.getHeight() * cellSize));
+            applyChanges(captureChanges(room));
+        }
         revalidate();
         repaint();
     }
@@ -53,39 +78,42 @@ public class RoomView extends JPanel {
     public void setCellSize(int size) { this.cellSize = size; revalidate(); repaint(); }
 
     private void handleClick(MouseEvent e) {
+        Room room = this.room;
         if (room == null) return;
         int x = e.getX() / cellSize;
         int y = e.getY() / cellSize;
-        Position p = new Position(x, y);
-        if (!room.inBounds(p)) return;
+        if (!room.inBounds(x, y)) return;
+        Position p = room.position(x, y);
+        RoomViewListener listener = this.listener;
 
         if (placingCharger && SwingUtilities.isLeftMouseButton(e)) {
-            room.setCharger(p, true);
-            if (listener != null) listener.onChargerPlaced(p);
+            roomEditor.execute(() -> {
+                room.setCharger(p, true);
+                if (listener != null) listener.onChargerPlaced(p);
+                showEditInPlace(room);
+            });
             placingCharger = false;
             repaint();
             return;
         }
 
-        if (placingObstacles && SwingUtilities.isLeftMouseButton(e)) {
-            room.setObstacle(p, !room.isObstacle(p));
-            if (listener != null) listener.onObstacleToggled(p);
+        if ((placingObstacles && SwingUtilities.isLeftMouseButton(e)) || SwingUtilities.isRightMouseButton(e)) {
+            roomEditor.execute(() -> {
+                room.setObstacle(p, !room.isObstacle(p));
+                if (listener != null) listener.onObstacleToggled(p);
+                showEditInPlace(room);
+            });
             repaint();
             return;
         }
 
         if (placingCat && SwingUtilities.isLeftMouseButton(e)) {
-            if (!room.isObstacle(p)) {
-                if (listener != null) listener.onCatPlaced(p);
-                placingCat = false;
-                repaint();
-            }
-            return;
-        }
-
-        if (SwingUtilities.isRightMouseButton(e)) {
-            room.setObstacle(p, !room.isObstacle(p));
-            if (listener != null) listener.onObstacleToggled(p);
+            if (cellKinds != null && cellKinds[y * room.getWidth() + x] == OBSTACLE) return;
+            roomEditor.execute(() -> {
+                if (!room.isObstacle(p) && listener != null) listener.onCatPlaced(p);
+                showEditInPlace(room);
+            });
+            placingCat = false;
             repaint();
             return;
         }
@@ -93,29 +121,153 @@ public class RoomView extends JPanel {
         if (listener != null) listener.onCellClicked(p);
     }
 
+    /**
+     * Con la simulación parada la edición se aplica ya en el EDT y se pinta
+     * enseguida (detrás de los cambios que ya estén en cola); si no, llega con
+     * los cambios del siguiente tick.
+     */
+    private void showEditInPlace(Room room) {
+        if (!SwingUtilities.isEventDispatchThread()) return;
+        Changes changes = captureChanges(room);
+        SwingUtilities.invokeLater(() -> applyChanges(changes));
+    }
+
     public void setPlacingCharger(boolean val) { this.placingCharger = val; }
     public void setPlacingObstacles(boolean val) { this.placingObstacles = val; }
     public void setPlacingCat(boolean val) { this.placingCat = val; }
 
-    public void setRobotPosition(Position p) { this.robotPosition = p; repaint(); }
-    public void setPath(List<Position> newPath) { this.path = newPath != null ? new ArrayList<>(newPath) : new ArrayList<>(); repaint(); }
+    public void setRobotPosition(Position p) {
+        repaintCell(robotPosition);
+        this.robotPosition = p;
+        repaintCell(p);
+    }
+
+    public void setPath(List<Position> newPath) {
+        for (Position pp : path) repaintCell(pp);
+        this.path = newPath != null ? new ArrayList<>(newPath) : new ArrayList<>();
+        for (Position pp : path) repaintCell(pp);
+    }
+
+    /**
+     * Cambios de la habitación listos para pintar: las celdas que cambiaron
+     * desde la captura anterior y qué hay que pintar en cada una. Se toman en
+     * el hilo que modifica la habitación y se aplican en el EDT sin volver a
+     * leerla.
+     */
+    public static final class Changes {
+        private final Room room;
+        private final long version;
+        // Celdas empaquetadas (ver Position#pack); null si es la habitación entera
+        private final long[] cells;
+        private final byte[] kinds;
+
+        private Changes(Room room, long version, long[] cells, byte[] kinds) {
+            this.room = room;
+            this.version = version;
+            this.cells = cells;
+            this.kinds = kinds;
+        }
+
+        public long getVersion() { return version; }
+    }
+
+    /**
+     * Captura los cambios de la habitación desde la captura anterior, según su
+     * diario de cambios (la habitación entera si el diario no alcanza o si es
+     * otra habitación). Se debe llamar en el hilo que modifica la habitación:
+     * el del motor mientras está en marcha.
+     */
+    public Changes captureChanges(Room room) {
+        long version = room.getVersion();
+        Changes last = lastCapture;
+        long since = last != null && last.room == room ? last.version : -1;
+        Changes changes = null;
+        if (since >= 0 && version - since <= Room.JOURNAL_CAPACITY) {
+            long[] cells = new long[(int) (version - since)];
+            int[] count = {0};
+            if (room.changesSince(since, p -> cells[count[0]++] = p)) {
+                byte[] kinds = new byte[cells.length];
+                for (int i = 0; i < cells.length; i++) {
+                    kinds[i] = kindOf(room, Position.unpackX(cells[i]), Position.unpackY(cells[i]));
+                }
+                changes = new Changes(room, version, cells, kinds);
+            }
+        }
+        if (changes == null) {
+            int width = room.getWidth();
+            byte[] kinds = new byte[width * room.getHeight()];
+            for (int y = 0; y < room.getHeight(); y++) {
+                for (int x = 0; x < width; x++) {
+                    kinds[y * width + x] = kindOf(room, x, y);
+                }
+            }
+            changes = new Changes(room, version, null, kinds);
+        }
+        lastCapture = changes;
+        return changes;
+    }
+
+    private static byte kindOf(Room room, int x, int y) {
+        if (room.hasCatAt(x, y)) return CAT;
+        if (room.hasChargerAt(x, y)) return CHARGER;
+        if (room.isObstacle(x, y)) return OBSTACLE;
+        if (room.hasCharger(x, y)) return CHARGER_MARK;
+        return room.isCleaned(x, y) ? CLEANED : DIRTY;
+    }
+
+    /**
+     * Aplica (en el EDT) unos cambios capturados y repinta solo sus celdas.
+     * Los de otra habitación se descartan.
+     */
+    public void applyChanges(Changes changes) {
+        if (changes.room != room) return;
+        if (changes.cells == null) {
+            cellKinds = changes.kinds;
+            repaint();
+            return;
+        }
+        if (cellKinds == null) return;
+        int width = room.getWidth();
+        for (int i = 0; i < changes.cells.length; i++) {
+            int x = Position.unpackX(changes.cells[i]);
+            int y = Position.unpackY(changes.cells[i]);
+            cellKinds[y * width + x] = changes.kinds[i];
+            repaintCell(x, y);
+        }
+    }
+
+    private void repaintCell(Position p) {
+        if (p != null) repaintCell(p.x, p.y);
+    }
+
+    private void repaintCell(int x, int y) {
+        repaint(x * cellSize, y * cellSize, cellSize + 1, cellSize + 1);
+    }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g.create();
-        if (room == null) return;
+        byte[] kinds = cellKinds;
+        if (room == null || kinds == null) return;
 
-        for (int x = 0; x < room.getWidth(); x++) {
-            for (int y = 0; y < room.getHeight(); y++) {
+        // Solo las celdas dentro de la zona a repintar
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        int x0 = Math.max(0, clip.x / cellSize - 1);
+        int y0 = Math.max(0, clip.y / cellSize - 1);
+        int x1 = Math.min(room.getWidth(), (clip.x + clip.width) / cellSize + 1);
+        int y1 = Math.min(room.getHeight(), (clip.y + clip.height) / cellSize + 1);
+
+        for (int x = x0; x < x1; x++) {
+            for (int y = y0; y < y1; y++) {
                 int sx = x * cellSize;
                 int sy = y * cellSize;
-                Position p = new Position(x, y);
-
-                boolean hasCat = room.hasCatAt(p);
-                boolean hasCharger = room.hasChargerAt(p);
+                byte kind = kinds[y * room.getWidth() + x];
+                boolean hasCat = kind == CAT;
+                boolean hasCharger = kind == CHARGER;
 
-                if (room.isObstacle(p) && !hasCat && !hasCharger) {
+                if (kind == OBSTACLE) {
                     g2.setColor(Color.DARK_GRAY);
                     g2.fillRect(sx, sy, cellSize, cellSize);
                 } else if (hasCat) {
@@ -125,10 +277,10 @@ public class RoomView extends JPanel {
                     // Cargador - fondo amarillo brillante
                     g2.setColor(new Color(255, 255, 150));
                     g2.fillRect(sx, sy, cellSize, cellSize);
-                } else if (room.hasCharger(p)) {
+                } else if (kind == CHARGER_MARK) {
                     g2.setColor(Color.ORANGE);
                     g2.fillRect(sx, sy, cellSize, cellSize);
-                } else if (room.isCleaned(p)) {
+                } else if (kind == CLEANED) {
                     g2.setColor(new Color(144, 238, 144));
                     g2.fillRect(sx, sy, cellSize, cellSize);
                 } else {
@@ -161,6 +313,7 @@ public class RoomView extends JPanel {
         if (path != null && !path.isEmpty()) {
             g2.setColor(new Color(51, 51, 255, 80));
             for (Position pp : path) {
+                if (pp.x < x0 || pp.x >= x1 || pp.y < y0 || pp.y >= y1) continue;
                 int sx = pp.x * cellSize;
                 int sy = pp.y * cellSize;
                 g2.fillRect(sx, sy, cellSize, cellSize);
@@ -0,0 +1,477 @@
+package maps;
+
+import model.CatObstacleStrategy;
+import model.ChargerStrategy;
+import model.DynamicObstacle;
+import model.Position;
+import model.Room;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Importa planos de planta en PNG (o cualquier imagen que lea ImageIO) como
+ * habitaciones. Los píxeles se leen directamente del DataBuffer del raster,
+ * fila a fila, sin llamar a getRGB por píxel:
+ * <ul>
+ *   <li>los píxeles oscuros (luminancia bajo el umbral) son pared,</li>
+ *   <li>los píxeles del color de marcador del cargador o del gato colocan ese
+ *       obstáculo dinámico (uno por mancha de celdas contiguas),</li>
+ *   <li>cada celda agrupa cellSize x cellSize píxeles y es obstáculo si la
+ *       fracción de píxeles de pared alcanza obstacleFraction.</li>
+ * </ul>
+ * Las filas de celdas se calculan en paralelo y se aplican después a la
+ * habitación en orden, fila a fila.
+ */
+public final class FloorPlanImporter {
+    private static final byte FREE = 0;
+    private static final byte WALL = 1;
+    private static final byte CHARGER = 2;
+    private static final byte CAT = 3;
+
+    /**
+     * Parámetros de importación.
+     */
+    public static final class Options {
+        private int cellSize = 1;
+        private int threshold = 128;
+        private double obstacleFraction = 0.5;
+        private int chargerColor = 0x00FF00;
+        private int catColor = 0xFF0000;
+        private int colorTolerance = 60;
+
+        /** Píxeles por lado de cada celda (reducción de resolución). */
+        public Options cellSize(int pixels) {
+            if (pixels < 1) throw new IllegalArgumentException("cellSize debe ser >= 1");
+            this.cellSize = pixels;
+            return this;
+        }
+
+        /** Luminancia (0-255) por debajo de la cual un píxel es pared. */
+        public Options threshold(int luminance) {
+            this.threshold = luminance;
+            return this;
+        }
+
+        /** Fracción de píxeles de pared a partir de la cual la celda es obstáculo. */
+        public Options obstacleFraction(double fraction) {
+            this.obstacleFraction = fraction;
+            return this;
+        }
+
+        /** Color RGB (0xRRGGBB) que marca el cargador. */
+        public Options chargerColor(int rgb) {
+            this.chargerColor = rgb & 0xFFFFFF;
+            return this;
+        }
+
+        /** Color RGB (0xRRGGBB) que marca un gato. */
+        public Options catColor(int rgb) {
+            this.catColor = rgb & 0xFFFFFF;
+            return this;
+        }
+
+        /** Distancia máxima (suma de |dR|+|dG|+|dB|) para reconocer un color de marcador. */
+        public Options colorTolerance(int tolerance) {
+            this.colorTolerance = tolerance;
+            return this;
+        }
+    }
+
+    private FloorPlanImporter() {}
+
+    public static Room importImage(Path file, Options options) throws IOException {
+        BufferedImage image = ImageIO.read(file.toFile());
+        if (image == null) throw new IOException("Formato de imagen no soportado: " + file);
+        return fromImage(image, options);
+    }
+
+    public static Room fromImage(BufferedImage image, Options options) {
+        int scale = options.cellSize;
+        int width = (image.getWidth() + scale - 1) / scale;
+        int height = (image.getHeight() + scale - 1) / scale;
+        int stride = (width + 63) >>> 6;
+
+        // Fase paralela: cada fila de celdas se calcula de forma independiente
+        RowDecoder decoder = RowDecoder.forImage(image, options);
+        long[][] obstacleRows = new long[height][];
+        long[][] markerRows = new long[height][];
+        IntStream.range(0, height).parallel().forEach(cy -> {
+            RowResult result = classifyRow(image, decoder, options, cy, width, stride);
+            obstacleRows[cy] = result.obstacles;
+            markerRows[cy] = result.markers;
+        });
+
+        // Fase secuencial: volcado a la habitación y obstáculos dinámicos
+        Room room = new Room(width, height);
+        Map<Long, Byte> markers = new HashMap<>();
+        for (int cy = 0; cy < height; cy++) {
+            room.setObstacleRow(cy, obstacleRows[cy]);
+            obstacleRows[cy] = null;
+            for (long m : markerRows[cy]) {
+                markers.put(m >>> 2, (byte) (m & 3));
+            }
+        }
+        addMarkers(room, markers, width);
+        return room;
+    }
+
+    private static final class RowResult {
+        final long[] obstacles;
+        final long[] markers;
+
+        RowResult(long[] obstacles, long[] markers) {
+            this.obstacles = obstacles;
+            this.markers = markers;
+        }
+    }
+
+    private static RowResult classifyRow(BufferedImage image, RowDecoder decoder, Options options,
+                                         int cy, int width, int stride) {
+        int scale = options.cellSize;
+        int imageWidth = image.getWidth();
+        int y0 = cy * scale;
+        int y1 = Math.min(y0 + scale, image.getHeight());
+        int[] argb = new int[imageWidth];
+        byte[] kinds = new byte[imageWidth];
+        int[] walls = new int[width];
+        byte[] marker = new byte[width];
+
+        for (int y = y0; y < y1; y++) {
+            decoder.classifyRow(y, argb, kinds);
+            for (int x = 0; x < imageWidth; x++) {
+                byte kind = kinds[x];
+                if (kind == WALL) walls[x / scale]++;
+                else if (kind != FREE) marker[x / scale] = kind;
+            }
+        }
+
+        long[] obstacles = new long[stride];
+        long[] markers = new long[0];
+        int markerCount = 0;
+        int rows = y1 - y0;
+        for (int cx = 0; cx < width; cx++) {
+            if (marker[cx] != FREE) {
+                if (markerCount == markers.length) markers = Arrays.copyOf(markers, Math.max(4, markerCount * 2));
+                markers[markerCount++] = (((long) cy * width + cx) << 2) | marker[cx];
+                continue;
+            }
+            int columns = Math.min(scale, imageWidth - cx * scale);
+            if (walls[cx] > 0 && walls[cx] >= options.obstacleFraction * columns * rows) {
+                obstacles[cx >>> 6] |= 1L << cx;
+            }
+        }
+        return new RowResult(obstacles, Arrays.copyOf(markers, markerCount));
+    }
+
+    private static byte classify(int argb, Options options) {
+        if ((argb >>> 24) < 128) return FREE; // transparente
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        if (near(r, g, b, options.chargerColor, options.colorTolerance)) return CHARGER;
+        if (near(r, g, b, options.catColor, options.colorTolerance)) return CAT;
+        // Luminancia entera (pesos Rec. 601 escalados a 1024)
+        int luminance = (306 * r + 601 * g + 117 * b) >> 10;
+        return luminance < options.threshold ? WALL : FREE;
+    }
+
+    private static boolean near(int r, int g, int b, int rgb, int tolerance) {
+        return Math.abs(r - ((rgb >> 16) & 0xFF)) + Math.abs(g - ((rgb >> 8) & 0xFF))
+            + Math.abs(b - (rgb & 0xFF)) <= tolerance;
+    }
+
+    /**
+     * Un obstáculo dinámico por cada mancha 4-conexa de celdas marcadas, en su
+     * primera celda (orden de filas).
+     */
+    private static void addMarkers(Room room, Map<Long, Byte> markers, int width) {
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        long[] cells = markers.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        for (long start : cells) {
+            Byte kind = markers.remove(start);
+            if (kind == null) continue;
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                long cell = queue.poll();
+                long x = cell % width;
+                long[] neighbors = {
+                    x + 1 < width ? cell + 1 : -1, x > 0 ? cell - 1 : -1, cell + width, cell - width
+                };
+                for (long n : neighbors) {
+                    if (n >= 0 && kind.equals(markers.get(n))) {
+                        markers.remove(n);
+                        queue.add(n);
+                    }
+                }
+            }
+            Position p = room.position((int) (start % width), (int) (start / width));
+            room.addDynamicObstacle(new DynamicObstacle(p,
+                kind == CHARGER ? new ChargerStrategy() : new CatObstacleStrategy()));
+        }
+    }
+
+    /**
+     * Decodifica una fila del raster a ARGB leyendo el DataBuffer según su
+     * disposición. Los formatos no reconocidos se leen con getRGB por filas.
+     */
+    private abstract static class RowDecoder {
+        final Options options;
+
+        RowDecoder(Options options) {
+            this.options = options;
+        }
+
+        abstract void decodeRow(int y, int[] argb);
+
+        /**
+         * Clasifica los píxeles de la fila y; argb es espacio de trabajo.
+         */
+        void classifyRow(int y, int[] argb, byte[] kinds) {
+            decodeRow(y, argb);
+            for (int x = 0; x < kinds.length; x++) {
+                kinds[x] = classify(argb[x], options);
+            }
+        }
+
+        static RowDecoder forImage(BufferedImage image, Options options) {
+            Raster raster = image.getRaster();
+            SampleModel sm = raster.getSampleModel();
+            DataBuffer db = raster.getDataBuffer();
+            ColorModel cm = image.getColorModel();
+            boolean topLevel = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && db.getNumBanks() == 1;
+
+            if (topLevel && db instanceof DataBufferByte && sm instanceof ComponentSampleModel) {
+                ComponentSampleModel csm = (ComponentSampleModel) sm;
+                byte[] data = ((DataBufferByte) db).getData();
+                int bands = csm.getNumBands();
+                if (cm instanceof IndexColorModel && bands == 1) {
+                    return new IndexedBytes(data, csm, (IndexColorModel) cm, options);
+                }
+                if (bands == 1 || bands == 2 || ((bands == 3 || bands == 4) && cm.getNumColorComponents() == 3)) {
+                    return new InterleavedBytes(data, csm, cm.hasAlpha(), options);
+                }
+            }
+            if (topLevel && db instanceof DataBufferByte && sm instanceof MultiPixelPackedSampleModel
+                && cm instanceof IndexColorModel) {
+                return new PackedIndexedBytes(((DataBufferByte) db).getData(),
+                    (MultiPixelPackedSampleModel) sm, (IndexColorModel) cm, options);
+            }
+            if (topLevel && db instanceof DataBufferInt && sm instanceof SinglePixelPackedSampleModel
+                && sm.getNumBands() >= 3) {
+                return new PackedInts(((DataBufferInt) db).getData(), (SinglePixelPackedSampleModel) sm, options);
+            }
+            if (topLevel && db instanceof DataBufferUShort && sm instanceof ComponentSampleModel
+                && sm.getNumBands() <= 2 && cm.getNumColorComponents() == 1) {
+                return new GrayShorts(((DataBufferUShort) db).getData(), (ComponentSampleModel) sm, options);
+            }
+            return new Generic(image, options);
+        }
+    }
+
+    /** Gris, gris+alfa, RGB o RGBA entrelazados en bytes (bandOffsets en orden R,G,B,A). */
+    private static final class InterleavedBytes extends RowDecoder {
+        private final byte[] data;
+        private final int pixelStride;
+        private final int scanlineStride;
+        private final int[] offsets;
+        private final boolean alpha;
+        private final byte[] grayKind;
+
+        InterleavedBytes(byte[] data, ComponentSampleModel sm, boolean alpha, Options options) {
+            super(options);
+            this.data = data;
+            this.pixelStride = sm.getPixelStride();
+            this.scanlineStride = sm.getScanlineStride();
+            this.offsets = sm.getBandOffsets();
+            this.alpha = alpha;
+            if (offsets.length == 1) {
+                grayKind = new byte[256];
+                for (int v = 0; v < 256; v++) grayKind[v] = classify(0xFF000000 | v * 0x010101, options);
+            } else {
+                grayKind = null;
+            }
+        }
+
+        @Override
+        void classifyRow(int y, int[] argb, byte[] kinds) {
+            if (grayKind == null) {
+                super.classifyRow(y, argb, kinds);
+                return;
+            }
+            // Gris de 8 bits: tabla de 256 entradas, sin pasar por ARGB
+            for (int x = 0, i = y * scanlineStride + offsets[0]; x < kinds.length; x++, i += pixelStride) {
+                kinds[x] = grayKind[data[i] & 0xFF];
+            }
+        }
+
+        @Override
+        void decodeRow(int y, int[] argb) {
+            int base = y * scanlineStride;
+            int bands = offsets.length;
+            int color = alpha ? bands - 1 : bands;
+            for (int x = 0, i = base; x < argb.length; x++, i += pixelStride) {
+                int a = alpha ? data[i + offsets[bands - 1]] & 0xFF : 0xFF;
+                int r = data[i + offsets[0]] & 0xFF;
+                int g = color >= 3 ? data[i + offsets[1]] & 0xFF : r;
+                int b = color >= 3 ? data[i + offsets[2]] & 0xFF : r;
+                argb[x] = (a << 24) | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    /** Paleta de 8 bits: cada índice se traduce con la tabla de la paleta. */
+    private static final class IndexedBytes extends RowDecoder {
+        private final byte[] data;
+        private final int pixelStride;
+        private final int scanlineStride;
+        private final int offset;
+        private final int[] palette = new int[256];
+
+        private final byte[] kindOf = new byte[256];
+
+        IndexedBytes(byte[] data, ComponentSampleModel sm, IndexColorModel cm, Options options) {
+            super(options);
+            this.data = data;
+            this.pixelStride = sm.getPixelStride();
+            this.scanlineStride = sm.getScanlineStride();
+            this.offset = sm.getBandOffsets()[0];
+            cm.getRGBs(palette);
+            for (int i = 0; i < 256; i++) kindOf[i] = classify(palette[i], options);
+        }
+
+        @Override
+        void classifyRow(int y, int[] argb, byte[] kinds) {
+            // Con paleta basta clasificar cada entrada una vez
+            for (int x = 0, i = y * scanlineStride + offset; x < kinds.length; x++, i += pixelStride) {
+                kinds[x] = kindOf[data[i] & 0xFF];
+            }
+        }
+
+        @Override
+        void decodeRow(int y, int[] argb) {
+            for (int x = 0, i = y * scanlineStride + offset; x < argb.length; x++, i += pixelStride) {
+                argb[x] = palette[data[i] & 0xFF];
+            }
+        }
+    }
+
+    /** Paleta de 1, 2 o 4 bits por píxel empaquetada en bytes. */
+    private static final class PackedIndexedBytes extends RowDecoder {
+        private final byte[] data;
+        private final int bits;
+        private final int scanlineStride;
+        private final int offset;
+        private final int[] palette;
+
+        PackedIndexedBytes(byte[] data, MultiPixelPackedSampleModel sm, IndexColorModel cm, Options options) {
+            super(options);
+            this.data = data;
+            this.bits = sm.getPixelBitStride();
+            this.scanlineStride = sm.getScanlineStride();
+            this.offset = sm.getDataBitOffset();
+            this.palette = new int[cm.getMapSize()];
+            cm.getRGBs(palette);
+        }
+
+        @Override
+        void decodeRow(int y, int[] argb) {
+            int mask = (1 << bits) - 1;
+            long rowBit = (long) y * scanlineStride * 8 + offset;
+            for (int x = 0; x < argb.length; x++) {
+                long bit = rowBit + (long) x * bits;
+                int shift = 8 - bits - (int) (bit & 7);
+                int index = (data[(int) (bit >>> 3)] >> shift) & mask;
+                argb[x] = index < palette.length ? palette[index] : 0xFF000000;
+            }
+        }
+    }
+
+    /** Un int por píxel (INT_RGB, INT_ARGB, INT_BGR...) con máscaras por banda. */
+    private static final class PackedInts extends RowDecoder {
+        private final int[] data;
+        private final int scanlineStride;
+        private final int[] masks;
+        private final int[] offsets;
+
+        PackedInts(int[] data, SinglePixelPackedSampleModel sm, Options options) {
+            super(options);
+            this.data = data;
+            this.scanlineStride = sm.getScanlineStride();
+            this.masks = sm.getBitMasks();
+            this.offsets = sm.getBitOffsets();
+        }
+
+        @Override
+        void decodeRow(int y, int[] argb) {
+            boolean alpha = masks.length > 3;
+            for (int x = 0, i = y * scanlineStride; x < argb.length; x++, i++) {
+                int p = data[i];
+                int r = ((p & masks[0]) >>> offsets[0]) & 0xFF;
+                int g = ((p & masks[1]) >>> offsets[1]) & 0xFF;
+                int b = ((p & masks[2]) >>> offsets[2]) & 0xFF;
+                int a = alpha ? ((p & masks[3]) >>> offsets[3]) & 0xFF : 0xFF;
+                argb[x] = (a << 24) | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    /** Gris de 16 bits (con alfa opcional): se usan los 8 bits altos. */
+    private static final class GrayShorts extends RowDecoder {
+        private final short[] data;
+        private final int pixelStride;
+        private final int scanlineStride;
+        private final int[] offsets;
+
+        GrayShorts(short[] data, ComponentSampleModel sm, Options options) {
+            super(options);
+            this.data = data;
+            this.pixelStride = sm.getPixelStride();
+            this.scanlineStride = sm.getScanlineStride();
+            this.offsets = sm.getBandOffsets();
+        }
+
+        @Override
+        void decodeRow(int y, int[] argb) {
+            for (int x = 0, i = y * scanlineStride; x < argb.length; x++, i += pixelStride) {
+                int v = (data[i + offsets[0]] & 0xFFFF) >>> 8;
+                int a = offsets.length > 1 ? (data[i + offsets[1]] & 0xFFFF) >>> 8 : 0xFF;
+                argb[x] = (a << 24) | (v << 16) | (v << 8) | v;
+            }
+        }
+    }
+
+    /** Formatos poco habituales: getRGB de la fila completa de una vez. */
+    private static final class Generic extends RowDecoder {
+        private final BufferedImage image;
+
+        Generic(BufferedImage image, Options options) {
+            super(options);
+            this.image = image;
+        }
+
+        @Override
+        void decodeRow(int y, int[] argb) {
+            image.getRGB(0, y, argb.length, 1, argb, 0, argb.length);
+        }
+    }
+}
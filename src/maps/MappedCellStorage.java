@@ -0,0 +1,211 @@
+package maps;
+
+import model.CellStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Almacenamiento de celdas leído directamente de un fichero de mapa
+ * proyectado en memoria (ver {@link RoomFile}). Cada plano de bits se
+ * proyecta en segmentos de como mucho 1 GiB alineados a filas, de modo que
+ * abrir un mapa de varios gigas no copia nada: el sistema operativo carga
+ * las páginas según se consultan. La proyección es privada (copia en
+ * escritura): los cambios de la simulación no se escriben en el fichero.
+ * Si el fichero es de solo lectura se proyecta READ_ONLY y cada segmento
+ * se copia a memoria la primera vez que se modifica.
+ */
+public class MappedCellStorage implements CellStorage {
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final long lastWordMask;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final ByteBuffer[][] planes;
+
+    // Recuentos vivos: el fichero los trae calculados y aquí se mantienen
+    private long cleanable;
+    private long cleaned;
+
+    MappedCellStorage(FileChannel channel, FileChannel.MapMode mode, long offset,
+                      int width, int height, long cleanable, long cleaned) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.stride = RoomFile.stride(width);
+        int rem = width & 63;
+        this.lastWordMask = rem == 0 ? -1L : (1L << rem) - 1;
+        this.cleanable = cleanable;
+        this.cleaned = cleaned;
+
+        long rowBytes = (long) stride * Long.BYTES;
+        int shift = 0;
+        while (shift < 30 && (rowBytes << (shift + 1)) <= MAX_SEGMENT_BYTES) shift++;
+        this.segmentShift = shift;
+        this.segmentMask = (1 << shift) - 1;
+
+        int segments = (int) (((long) height + segmentMask) >>> shift);
+        long planeBytes = rowBytes * height;
+        Plane[] all = Plane.values();
+        this.planes = new ByteBuffer[all.length][segments];
+        for (int p = 0; p < all.length; p++) {
+            for (int s = 0; s < segments; s++) {
+                long firstRow = (long) s << shift;
+                long rows = Math.min(1L << shift, height - firstRow);
+                long start = offset + p * planeBytes + firstRow * rowBytes;
+                planes[p][s] = channel.map(mode, start, rows * rowBytes);
+                planes[p][s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+
+    @Override public int getWidth() { return width; }
+    @Override public int getHeight() { return height; }
+
+    private long read(Plane plane, int x, int y) {
+        ByteBuffer segment = planes[plane.ordinal()][y >>> segmentShift];
+        return segment.getLong((((y & segmentMask) * stride) + (x >>> 6)) << 3);
+    }
+
+    private void write(Plane plane, int x, int y, long bits) {
+        ByteBuffer segment = planes[plane.ordinal()][y >>> segmentShift];
+        if (segment.isReadOnly()) segment = copySegment(plane, y >>> segmentShift);
+        segment.putLong((((y & segmentMask) * stride) + (x >>> 6)) << 3, bits);
+    }
+
+    private ByteBuffer copySegment(Plane plane, int index) {
+        ByteBuffer source = planes[plane.ordinal()][index];
+        ByteBuffer copy = ByteBuffer.allocate(source.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+        copy.put(source.duplicate().clear()).clear();
+        planes[plane.ordinal()][index] = copy;
+        return copy;
+    }
+
+    private boolean bit(Plane plane, int x, int y) {
+        return (read(plane, x, y) & (1L << x)) != 0;
+    }
+
+    private void setBit(Plane plane, int x, int y, boolean value) {
+        long bits = read(plane, x, y);
+        write(plane, x, y, value ? bits | (1L << x) : bits & ~(1L << x));
+    }
+
+    @Override
+    public boolean isObstacle(int x, int y) {
+        return bit(Plane.OBSTACLE, x, y);
+    }
+
+    @Override
+    public void setObstacle(int x, int y, boolean value) {
+        if (isObstacle(x, y) == value) return;
+        setBit(Plane.OBSTACLE, x, y, value);
+        int delta = value ? -1 : 1;
+        cleanable += delta;
+        if (isCleaned(x, y)) cleaned += delta;
+    }
+
+    @Override
+    public boolean isCleaned(int x, int y) {
+        return bit(Plane.CLEANED, x, y);
+    }
+
+    @Override
+    public void setCleaned(int x, int y, boolean value) {
+        if (isCleaned(x, y) == value) return;
+        setBit(Plane.CLEANED, x, y, value);
+        if (!isObstacle(x, y)) cleaned += value ? 1 : -1;
+    }
+
+    @Override
+    public boolean hasCharger(int x, int y) {
+        return bit(Plane.CHARGER, x, y);
+    }
+
+    @Override
+    public void setCharger(int x, int y, boolean value) {
+        setBit(Plane.CHARGER, x, y, value);
+    }
+
+    @Override
+    public long word(Plane plane, int x, int y) {
+        return read(plane, x, y);
+    }
+
+    @Override
+    public void setWord(Plane plane, int x, int y, long bits) {
+        // Pasar por los bits individuales mantiene los recuentos al día
+        CellStorage.super.setWord(plane, x, y, bits);
+    }
+
+    /**
+     * Escritura directa de una palabra, sin recuentos (para volcar un mapa al fichero).
+     */
+    void writeWord(Plane plane, int x, int y, long bits) {
+        write(plane, x, y, bits & mask(x >>> 6));
+    }
+
+    /**
+     * Fuerza la escritura en disco de los planos (solo en proyecciones READ_WRITE).
+     */
+    void force() {
+        for (ByteBuffer[] plane : planes) {
+            for (ByteBuffer segment : plane) {
+                if (segment instanceof MappedByteBuffer) ((MappedByteBuffer) segment).force();
+            }
+        }
+    }
+
+    @Override
+    public long countCleanable() {
+        return cleanable;
+    }
+
+    @Override
+    public long countCleaned() {
+        return cleaned;
+    }
+
+    @Override
+    public long countDirty(int x0, int y0, int x1, int y1) {
+        long count = 0;
+        for (int y = y0; y < y1; y++) {
+            for (int i = x0 >>> 6; i <= (x1 - 1) >>> 6; i++) {
+                int x = i << 6;
+                long dirty = ~read(Plane.CLEANED, x, y) & ~read(Plane.OBSTACLE, x, y) & mask(i);
+                if (i == x0 >>> 6) dirty &= -1L << x0;
+                if (i == (x1 - 1) >>> 6 && (x1 & 63) != 0) dirty &= (1L << x1) - 1;
+                count += Long.bitCount(dirty);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long nextDirty(long from) {
+        if (from < 0) from = 0;
+        int y = (int) (from / width);
+        int x = (int) (from % width);
+        while (y < height) {
+            for (int i = x >>> 6; i < stride; i++) {
+                int wx = i << 6;
+                long dirty = ~read(Plane.CLEANED, wx, y) & ~read(Plane.OBSTACLE, wx, y) & mask(i);
+                if (i == x >>> 6) dirty &= -1L << x; // descartar las celdas anteriores a from
+                if (dirty != 0) {
+                    return (long) y * width + wx + Long.numberOfTrailingZeros(dirty);
+                }
+            }
+            y++;
+            x = 0;
+        }
+        return -1;
+    }
+
+    private long mask(int wordInRow) {
+        return wordInRow == stride - 1 ? lastWordMask : -1L;
+    }
+}
@@ -0,0 +1,191 @@
+package maps;
+
+import model.CatObstacleStrategy;
+import model.CellStorage;
+import model.ChargerStrategy;
+import model.DynamicObstacle;
+import model.FixedObstacleStrategy;
+import model.ObstacleStrategy;
+import model.ObstacleType;
+import model.Position;
+import model.Room;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binario de mapas, leído y escrito con ficheros proyectados en memoria.
+ *
+ * Cabecera de 64 bytes (little-endian):
+ * <pre>
+ *  0  int   MAGIC ("ROOM")
+ *  4  int   VERSION
+ *  8  int   ancho
+ * 12  int   alto
+ * 16  int   palabras de 64 bits por fila (stride)
+ * 20  int   número de obstáculos dinámicos
+ * 24  long  celdas limpiables
+ * 32  long  celdas limpias
+ * </pre>
+ * Después van tres planos de bits (obstáculo, limpia, cargador) de alto*stride
+ * longs cada uno, con las filas alineadas a palabra, y la tabla de obstáculos
+ * dinámicos como ternas de ints (tipo, x, y).
+ */
+public final class RoomFile {
+    public static final int MAGIC = 0x524F4F4D;
+    public static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 64;
+    private static final int OBSTACLE_ENTRY_BYTES = 12;
+
+    private RoomFile() {}
+
+    static int stride(int width) {
+        return (width + 63) >>> 6;
+    }
+
+    private static long planeBytes(int width, int height) {
+        return (long) stride(width) * height * Long.BYTES;
+    }
+
+    /**
+     * Guarda la habitación (rejilla y obstáculos dinámicos) en el fichero, sobrescribiéndolo.
+     * Se escribe en un temporal y se renombra, así que es seguro guardar sobre
+     * el mismo fichero del que se cargó la habitación.
+     */
+    public static void save(Room room, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        write(room, tmp);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void write(Room room, Path file) throws IOException {
+        int width = room.getWidth();
+        int height = room.getHeight();
+        List<DynamicObstacle> obstacles = room.getDynamicObstacles();
+        long planesEnd = HEADER_BYTES + CellStorage.Plane.values().length * planeBytes(width, height);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, width);
+            header.putInt(12, height);
+            header.putInt(16, stride(width));
+            header.putInt(20, obstacles.size());
+            header.putLong(24, room.countCleanableCells());
+            header.putLong(32, room.countCleanedCells());
+
+            // Los planos se copian palabra a palabra a la proyección del fichero
+            MappedCellStorage target = new MappedCellStorage(channel, FileChannel.MapMode.READ_WRITE,
+                HEADER_BYTES, width, height, room.countCleanableCells(), room.countCleanedCells());
+            int stride = stride(width);
+            for (CellStorage.Plane plane : CellStorage.Plane.values()) {
+                for (int y = 0; y < height; y++) {
+                    for (int i = 0; i < stride; i++) {
+                        target.writeWord(plane, i << 6, y, room.getWord(plane, i << 6, y));
+                    }
+                }
+            }
+            target.force();
+
+            MappedByteBuffer table = map(channel, FileChannel.MapMode.READ_WRITE, planesEnd,
+                (long) obstacles.size() * OBSTACLE_ENTRY_BYTES);
+            for (DynamicObstacle obstacle : obstacles) {
+                table.putInt(obstacle.getType().ordinal());
+                table.putInt(obstacle.getPosition().x);
+                table.putInt(obstacle.getPosition().y);
+            }
+            table.force();
+            header.force();
+        }
+    }
+
+    /**
+     * Abre el mapa sin copiarlo: la rejilla de la habitación se lee directamente
+     * de la proyección del fichero (ver {@link MappedCellStorage}). Los cambios
+     * durante la simulación no modifican el fichero, que puede ser de solo lectura.
+     */
+    public static Room load(Path file) throws IOException {
+        return load(file, Collections.emptyMap());
+    }
+
+    /**
+     * Como {@link #load(Path)}, creando los gatos de las posiciones indicadas
+     * de la tabla de obstáculos con su semilla propia (la que guarda una
+     * grabación, ver {@code SimulationRecorder}).
+     */
+    public static Room load(Path file, Map<Integer, Long> ownSeeds) throws IOException {
+        // MapMode.PRIVATE exige un canal de lectura y escritura aunque nunca se escriba en el
+        // fichero; si no se puede escribir se proyecta READ_ONLY y se copia al modificarlo
+        boolean writable = Files.isWritable(file);
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new IOException("Fichero de mapa truncado: " + file);
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) throw new IOException("No es un fichero de mapa: " + file);
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Versión de mapa no soportada: " + header.getInt(4));
+            }
+            int width = header.getInt(8);
+            int height = header.getInt(12);
+            int obstacleCount = header.getInt(20);
+            long cleanable = header.getLong(24);
+            long cleaned = header.getLong(32);
+            // Los recuentos no se recalculan (habría que leer todos los planos), pero deben ser coherentes
+            if (width <= 0 || height <= 0 || obstacleCount < 0 || header.getInt(16) != stride(width)
+                    || cleaned < 0 || cleaned > cleanable || cleanable > (long) width * height) {
+                throw new IOException("Cabecera de mapa corrupta: " + file);
+            }
+            long planesEnd = HEADER_BYTES + CellStorage.Plane.values().length * planeBytes(width, height);
+            long expected = planesEnd + (long) obstacleCount * OBSTACLE_ENTRY_BYTES;
+            if (channel.size() < expected) throw new IOException("Fichero de mapa truncado: " + file);
+
+            // PRIVATE: copia en escritura, la simulación puede modificar la rejilla
+            MappedCellStorage storage = new MappedCellStorage(channel,
+                writable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY,
+                HEADER_BYTES, width, height, cleanable, cleaned);
+            Room room = new Room(storage);
+
+            ByteBuffer table = map(channel, FileChannel.MapMode.READ_ONLY, planesEnd,
+                (long) obstacleCount * OBSTACLE_ENTRY_BYTES);
+            ObstacleType[] types = ObstacleType.values();
+            for (int i = 0; i < obstacleCount; i++) {
+                int type = table.getInt();
+                Position p = new Position(table.getInt(), table.getInt());
+                if (type < 0 || type >= types.length || !room.inBounds(p)) {
+                    throw new IOException("Obstáculo dinámico no válido en " + file);
+                }
+                room.addDynamicObstacle(new DynamicObstacle(p, strategyFor(types[type], ownSeeds.get(i))));
+            }
+            return room;
+        }
+    }
+
+    private static ObstacleStrategy strategyFor(ObstacleType type, Long ownSeed) {
+        switch (type) {
+            case CAT: return ownSeed != null ? new CatObstacleStrategy(ownSeed) : new CatObstacleStrategy();
+            case CHARGER: return new ChargerStrategy();
+            default: return new FixedObstacleStrategy();
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode,
+                                        long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
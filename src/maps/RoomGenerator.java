@@ -0,0 +1,279 @@
+package maps;
+
+import model.CatObstacleStrategy;
+import model.ChargerStrategy;
+import model.DynamicObstacle;
+import model.Position;
+import model.Room;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Generador procedural de habitaciones reproducibles (misma semilla y mismas
+ * opciones, misma habitación) para pruebas de escala y de rendimiento.
+ *
+ * Cada distribución se calcula fila a fila y cada fila solo depende de la
+ * semilla y de su número, así que las filas se generan en paralelo y por
+ * bloques (las habitaciones enormes no necesitan toda la rejilla en memoria
+ * dos veces). Después se colocan el cargador y los gatos en celdas libres.
+ */
+public final class RoomGenerator {
+    /** Filas que se generan en paralelo antes de volcarlas a la habitación. */
+    private static final int BLOCK_ROWS = 1024;
+
+    public enum Layout {
+        /** Sin paredes (solo el desorden que se pida). */
+        OPEN,
+        /** Despachos cuadrados separados por tabiques con una puerta a cada lado. */
+        OFFICE,
+        /** Laberinto perfecto (algoritmo sidewinder, que trabaja fila a fila). */
+        MAZE,
+        /** Obstáculos sueltos con la densidad indicada. */
+        CLUTTER,
+        /** Pasillos horizontales estrechos unidos por pasos verticales. */
+        CORRIDORS
+    }
+
+    /**
+     * Parámetros de generación.
+     */
+    public static final class Options {
+        private long seed = 42;
+        private Layout layout = Layout.OPEN;
+        private double clutter = 0.0;
+        private int officeSize = 12;
+        private int corridorWidth = 1;
+        private int cats = 0;
+        private boolean charger = true;
+
+        public Options seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Options layout(Layout layout) {
+            this.layout = layout;
+            return this;
+        }
+
+        /** Probabilidad (0-1) de obstáculo suelto en cada celda libre; CLUTTER usa 0.2 si no se indica. */
+        public Options clutter(double density) {
+            this.clutter = density;
+            return this;
+        }
+
+        /** Lado de cada despacho en OFFICE, tabique incluido. */
+        public Options officeSize(int cells) {
+            if (cells < 4) throw new IllegalArgumentException("officeSize debe ser >= 4");
+            this.officeSize = cells;
+            return this;
+        }
+
+        /** Anchura de los pasillos en MAZE y CORRIDORS. */
+        public Options corridorWidth(int cells) {
+            if (cells < 1) throw new IllegalArgumentException("corridorWidth debe ser >= 1");
+            this.corridorWidth = cells;
+            return this;
+        }
+
+        /** Número de gatos (CatObstacleStrategy con semilla derivada de la general). */
+        public Options cats(int cats) {
+            this.cats = cats;
+            return this;
+        }
+
+        /** Si se coloca un cargador en una celda libre. */
+        public Options charger(boolean charger) {
+            this.charger = charger;
+            return this;
+        }
+    }
+
+    private RoomGenerator() {}
+
+    public static Room generate(int width, int height, Options options) {
+        Room room = new Room(width, height);
+        int stride = (width + 63) >>> 6;
+        double clutter = options.layout == Layout.CLUTTER && options.clutter == 0.0 ? 0.2 : options.clutter;
+
+        long[][] rows = new long[Math.min(BLOCK_ROWS, height)][];
+        for (int y0 = 0; y0 < height; y0 += BLOCK_ROWS) {
+            int first = y0;
+            int count = Math.min(BLOCK_ROWS, height - y0);
+            IntStream.range(0, count).parallel().forEach(i -> {
+                long[] row = new long[stride];
+                fillRow(row, first + i, width, height, options);
+                if (clutter > 0) addClutter(row, first + i, width, clutter, options.seed);
+                rows[i] = row;
+            });
+            for (int i = 0; i < count; i++) {
+                room.setObstacleRow(first + i, rows[i]);
+                rows[i] = null;
+            }
+        }
+
+        // Cargador y gatos, en orden y con su propio generador para ser reproducibles
+        SplittableRandom random = new SplittableRandom(mix(options.seed, -1));
+        if (options.charger) {
+            Position p = freeCell(room, random);
+            if (p != null) room.addDynamicObstacle(new DynamicObstacle(p, new ChargerStrategy()));
+        }
+        for (int i = 0; i < options.cats; i++) {
+            Position p = freeCell(room, random);
+            if (p == null) break;
+            room.addDynamicObstacle(new DynamicObstacle(p, new CatObstacleStrategy(random.nextLong())));
+        }
+        return room;
+    }
+
+    private static void fillRow(long[] row, int y, int width, int height, Options options) {
+        switch (options.layout) {
+            case OFFICE: officeRow(row, y, width, height, options); break;
+            case MAZE: mazeRow(row, y, width, options); break;
+            case CORRIDORS: corridorRow(row, y, width, options); break;
+            default: break;
+        }
+    }
+
+    /**
+     * Tabiques en la última fila y columna de cada despacho, con una puerta de
+     * dos celdas en una posición pseudoaleatoria de cada tramo.
+     */
+    private static void officeRow(long[] row, int y, int width, int height, Options options) {
+        int size = options.officeSize;
+        int by = y / size;
+        if (y % size == size - 1) {
+            Arrays.fill(row, -1L);
+            for (int bx = 0; bx * size < width; bx++) {
+                int door = bx * size + door(options.seed, 0, bx, by, Math.min(size - 1, width - bx * size));
+                clearRange(row, door, Math.min(door + 2, width));
+            }
+            return;
+        }
+        for (int bx = 0; bx * size < width; bx++) {
+            int wall = bx * size + size - 1;
+            if (wall >= width) break;
+            int door = by * size + door(options.seed, 1, bx, by, Math.min(size - 1, height - by * size));
+            if (y != door && y != door + 1) setBit(row, wall);
+        }
+    }
+
+    /**
+     * Desplazamiento de la puerta dentro de un tramo de span celdas (los
+     * despachos recortados por el borde tienen tramos más cortos).
+     */
+    private static int door(long seed, int axis, int bx, int by, int span) {
+        long h = mix(seed, ((long) bx << 32) ^ by ^ ((long) axis << 62));
+        return (int) Math.floorMod(h, (long) Math.max(1, span - 1));
+    }
+
+    /**
+     * Laberinto sidewinder: las celdas del laberinto ocupan corridorWidth x
+     * corridorWidth y están separadas por muros de una celda. En cada fila del
+     * laberinto las celdas se agrupan en tramos abiertos hacia el este y cada
+     * tramo abre un paso hacia el norte; la primera fila es un único tramo.
+     * Las decisiones de cada fila del laberinto dependen solo de la semilla,
+     * así que cada fila de la rejilla las recalcula sin esperar a las demás.
+     */
+    private static void mazeRow(long[] row, int y, int width, Options options) {
+        int cell = options.corridorWidth + 1;
+        int my = y / cell;
+        int columns = (width + cell - 1) / cell;
+        Arrays.fill(row, -1L);
+
+        if (y % cell == cell - 1) {
+            // Muro entre la fila my y la siguiente: pasos al norte de la siguiente
+            boolean[] north = new boolean[columns];
+            sidewinder(options.seed, my + 1, columns, null, north);
+            for (int c = 0; c < columns; c++) {
+                if (north[c]) clearRange(row, c * cell, Math.min(c * cell + options.corridorWidth, width));
+            }
+            return;
+        }
+        boolean[] east = new boolean[columns];
+        sidewinder(options.seed, my, columns, east, new boolean[columns]);
+        for (int c = 0; c < columns; c++) {
+            int x1 = Math.min(c * cell + options.corridorWidth, width);
+            clearRange(row, c * cell, x1);
+            if (east[c] && x1 < width) clearBit(row, x1);
+        }
+    }
+
+    private static void sidewinder(long seed, int mazeRow, int columns, boolean[] east, boolean[] north) {
+        SplittableRandom random = new SplittableRandom(mix(seed, mazeRow));
+        int runStart = 0;
+        for (int c = 0; c < columns; c++) {
+            boolean open = c < columns - 1 && (mazeRow == 0 || random.nextBoolean());
+            if (east != null) east[c] = open;
+            if (!open) {
+                if (mazeRow > 0) north[runStart + random.nextInt(c - runStart + 1)] = true;
+                runStart = c + 1;
+            }
+        }
+    }
+
+    /**
+     * Franjas de muro con pasillos horizontales de corridorWidth filas y, en
+     * cada franja de muro, unos pocos pasos verticales en columnas aleatorias.
+     */
+    private static void corridorRow(long[] row, int y, int width, Options options) {
+        int corridor = options.corridorWidth;
+        int period = corridor * 4;
+        if (y % period < corridor) return; // pasillo
+        Arrays.fill(row, -1L);
+        int band = y / period;
+        SplittableRandom random = new SplittableRandom(mix(options.seed, band));
+        int passages = Math.max(1, width / (period * 8));
+        for (int i = 0; i < passages; i++) {
+            int x0 = random.nextInt(width);
+            clearRange(row, x0, Math.min(x0 + corridor, width));
+        }
+    }
+
+    private static void addClutter(long[] row, int y, int width, double density, long seed) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ 0x5DEECE66DL, y));
+        for (int x = 0; x < width; x++) {
+            if (random.nextDouble() < density) setBit(row, x);
+        }
+    }
+
+    /**
+     * Celda libre al azar; tras muchos intentos fallidos, la primera libre
+     * recorriendo la rejilla. Null si no queda ninguna.
+     */
+    private static Position freeCell(Room room, SplittableRandom random) {
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            int x = random.nextInt(room.getWidth());
+            int y = random.nextInt(room.getHeight());
+            if (!room.isObstacle(x, y)) return room.position(x, y);
+        }
+        for (int y = 0; y < room.getHeight(); y++) {
+            for (int x = 0; x < room.getWidth(); x++) {
+                if (!room.isObstacle(x, y)) return room.position(x, y);
+            }
+        }
+        return null;
+    }
+
+    /** Mezcla de semilla y clave (finalizador de SplitMix64). */
+    private static long mix(long seed, long key) {
+        long z = seed + key * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void setBit(long[] row, int x) {
+        row[x >>> 6] |= 1L << x;
+    }
+
+    private static void clearBit(long[] row, int x) {
+        row[x >>> 6] &= ~(1L << x);
+    }
+
+    private static void clearRange(long[] row, int from, int to) {
+        for (int x = from; x < to; x++) clearBit(row, x);
+    }
+}
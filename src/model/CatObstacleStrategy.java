@@ -10,13 +10,53 @@ import java.util.Random;
  */
 public class CatObstacleStrategy implements ObstacleStrategy {
     private static final int MOVES_TO_TRIGGER = 3;
-    private final Random random = new Random();
+    private final Random random;
+    private final boolean ownSeed;
+    private final long seed;
     private int lastMoveCount = 0;
 
+    /**
+     * Gato sin semilla propia: la habitación le da la suya al añadirlo.
+     */
+    public CatObstacleStrategy() {
+        this.random = new Random(0);
+        this.ownSeed = false;
+        this.seed = 0;
+    }
+
+    /**
+     * Gato con movimientos reproducibles (misma semilla, mismos movimientos).
+     * La habitación usa esta semilla en lugar de la suya, también en setSeed.
+     */
+    public CatObstacleStrategy(long seed) {
+        this.random = new Random(seed);
+        this.ownSeed = true;
+        this.seed = seed;
+    }
+
+    /**
+     * Vuelve a empezar con la semilla dada: mismos movimientos con la misma semilla.
+     */
+    @Override
+    public void reset(long seed) {
+        random.setSeed(seed);
+        lastMoveCount = 0;
+    }
+
+    @Override
+    public boolean hasOwnSeed() {
+        return ownSeed;
+    }
+
+    @Override
+    public long getOwnSeed() {
+        return seed;
+    }
+
     @Override
     public Position update(Room room, Position currentPosition, int robotMoveCount) {
         // El gato se mueve cada 3 movimientos del robot
-        if (robotMoveCount > 0 && robotMoveCount % MOVES_TO_TRIGGER == 0 && robotMoveCount != lastMoveCount) {
+        if (!isIdleAt(robotMoveCount)) {
             lastMoveCount = robotMoveCount;
 
             // Obtener vecinos válidos (no obstáculos)
@@ -24,9 +64,10 @@ public class CatObstacleStrategy implements ObstacleStrategy {
             int[][] deltas = {{1,0}, {-1,0}, {0,1}, {0,-1}};
 
             for (int[] d : deltas) {
-                Position newPos = new Position(currentPosition.x + d[0], currentPosition.y + d[1]);
-                if (room.inBounds(newPos) && !room.isObstacle(newPos)) {
-                    validNeighbors.add(newPos);
+                int nx = currentPosition.x + d[0];
+                int ny = currentPosition.y + d[1];
+                if (room.inBounds(nx, ny) && !room.isObstacle(nx, ny)) {
+                    validNeighbors.add(room.position(nx, ny));
                 }
             }
 
@@ -37,7 +78,7 @@ public class CatObstacleStrategy implements ObstacleStrategy {
                 // Ensuciar la celda donde estaba el gato
                 room.setCleaned(currentPosition, false);
 
-                System.out.println("🐱 ¡El gato se movió de " + currentPosition + " a " + newPosition + " y ensució!");
+                Log.println("🐱 ¡El gato se movió de " + currentPosition + " a " + newPosition + " y ensució!");
 
                 return newPosition;
             }
@@ -46,6 +87,15 @@ public class CatObstacleStrategy implements ObstacleStrategy {
         return null; // No se mueve este tick
     }
 
+    /**
+     * Con el robot quieto el gato solo se mueve una vez por múltiplo de 3
+     * (si no tiene hueco lo sigue intentando en cada tick).
+     */
+    @Override
+    public boolean isIdleAt(int robotMoveCount) {
+        return !(robotMoveCount > 0 && robotMoveCount % MOVES_TO_TRIGGER == 0 && robotMoveCount != lastMoveCount);
+    }
+
     @Override
     public boolean dirtiesCell() {
         return true;
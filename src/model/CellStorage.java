@@ -0,0 +1,95 @@
+package model;
+
+/**
+ * Almacenamiento de los indicadores de cada celda (obstáculo, limpia, cargador).
+ * {@link Room} delega en esta interfaz para poder cambiar la representación
+ * en memoria sin tocar su API. Las coordenadas ya vienen validadas por Room.
+ * Los índices lineales son y*width+x en long, para rejillas de cualquier tamaño.
+ */
+public interface CellStorage {
+    /**
+     * Indicadores por celda, para el acceso por palabras de 64 celdas.
+     */
+    enum Plane { OBSTACLE, CLEANED, CHARGER }
+
+    int getWidth();
+    int getHeight();
+
+    boolean isObstacle(int x, int y);
+    void setObstacle(int x, int y, boolean obstacle);
+
+    boolean isCleaned(int x, int y);
+    void setCleaned(int x, int y, boolean cleaned);
+
+    boolean hasCharger(int x, int y);
+    void setCharger(int x, int y, boolean charger);
+
+    default boolean get(Plane plane, int x, int y) {
+        switch (plane) {
+            case OBSTACLE: return isObstacle(x, y);
+            case CLEANED: return isCleaned(x, y);
+            default: return hasCharger(x, y);
+        }
+    }
+
+    default void set(Plane plane, int x, int y, boolean value) {
+        switch (plane) {
+            case OBSTACLE: setObstacle(x, y, value); break;
+            case CLEANED: setCleaned(x, y, value); break;
+            default: setCharger(x, y, value); break;
+        }
+    }
+
+    /**
+     * Bits de las 64 celdas de la fila y que empiezan en x (múltiplo de 64);
+     * el bit i es la celda x+i. Las celdas fuera de la rejilla valen 0.
+     */
+    default long word(Plane plane, int x, int y) {
+        long bits = 0;
+        int end = Math.min(x + 64, getWidth());
+        for (int i = x; i < end; i++) {
+            if (get(plane, i, y)) bits |= 1L << (i - x);
+        }
+        return bits;
+    }
+
+    /**
+     * Escribe de golpe las 64 celdas de la fila y que empiezan en x (múltiplo
+     * de 64). Se ignoran los bits fuera de la rejilla.
+     */
+    default void setWord(Plane plane, int x, int y, long bits) {
+        int end = Math.min(x + 64, getWidth());
+        for (int i = x; i < end; i++) {
+            set(plane, i, y, (bits & (1L << (i - x))) != 0);
+        }
+    }
+
+    /**
+     * Número de celdas sin obstáculo.
+     */
+    long countCleanable();
+
+    /**
+     * Número de celdas sin obstáculo que ya están limpias.
+     */
+    long countCleaned();
+
+    /**
+     * Número de celdas sucias en el rectángulo [x0,x1) x [y0,y1).
+     */
+    default long countDirty(int x0, int y0, int x1, int y1) {
+        long count = 0;
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                if (!isObstacle(x, y) && !isCleaned(x, y)) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Índice lineal de la primera celda sucia (sin obstáculo y sin limpiar)
+     * a partir de from (incluido), o -1 si no hay ninguna.
+     */
+    long nextDirty(long from);
+}
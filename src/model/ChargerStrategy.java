@@ -21,5 +21,10 @@ public class ChargerStrategy implements ObstacleStrategy {
     public ObstacleType getType() {
         return ObstacleType.CHARGER;
     }
+
+    @Override
+    public boolean isIdleAt(int robotMoveCount) {
+        return true;
+    }
 }
 
@@ -0,0 +1,210 @@
+package model;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Pirámide de recuentos de celdas sucias (quadtree implícito sobre arrays).
+ * El nivel 0 cuenta bloques de 8x8 celdas (más grandes en rejillas enormes,
+ * para acotar la memoria) y cada nivel superior agrupa 2x2 bloques del anterior. La celda sucia más cercana (Manhattan) a un punto se
+ * busca primero por los nodos más prometedores, descartando las ramas sin
+ * suciedad o más lejanas que el mejor candidato, en tiempo casi logarítmico.
+ * Room lo mantiene al día cada vez que una celda pasa de sucia a limpia o al revés.
+ */
+final class DirtyCellIndex {
+    private static final int MIN_LEAF_SHIFT = 3;
+    // Máximo de bloques en el nivel 0
+    private static final long MAX_LEAVES = 1 << 20;
+
+    private final int leafShift;
+    private final int leaf;
+
+    private final CellStorage cells;
+    private final int width;
+    private final int height;
+    private final long[][] counts;
+    private final int[] levelWidth;
+    private final int[] levelHeight;
+    private final int[] levelBase;
+
+    private long[] heap = new long[64];
+    private int heapSize = 0;
+
+    DirtyCellIndex(CellStorage cells) {
+        this.cells = cells;
+        this.width = cells.getWidth();
+        this.height = cells.getHeight();
+        int shift = MIN_LEAF_SHIFT;
+        while ((long) ((width >> shift) + 1) * ((height >> shift) + 1) > MAX_LEAVES) shift++;
+        this.leafShift = shift;
+        this.leaf = 1 << shift;
+
+        int levels = 1;
+        int w = (width + leaf - 1) >> leafShift;
+        int h = (height + leaf - 1) >> leafShift;
+        while (w > 1 || h > 1) {
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+            levels++;
+        }
+        counts = new long[levels][];
+        levelWidth = new int[levels];
+        levelHeight = new int[levels];
+        levelBase = new int[levels];
+        w = (width + leaf - 1) >> leafShift;
+        h = (height + leaf - 1) >> leafShift;
+        int base = 0;
+        for (int l = 0; l < levels; l++) {
+            levelWidth[l] = w;
+            levelHeight[l] = h;
+            levelBase[l] = base;
+            counts[l] = new long[w * h];
+            base += w * h;
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+        }
+
+        // Recuento de cada bloque hoja y suma hacia los niveles superiores
+        for (int by = 0; by < levelHeight[0]; by++) {
+            for (int bx = 0; bx < levelWidth[0]; bx++) {
+                int x0 = bx << leafShift;
+                int y0 = by << leafShift;
+                counts[0][by * levelWidth[0] + bx] =
+                    cells.countDirty(x0, y0, Math.min(x0 + leaf, width), Math.min(y0 + leaf, height));
+            }
+        }
+        for (int l = 1; l < levels; l++) {
+            for (int by = 0; by < levelHeight[l - 1]; by++) {
+                for (int bx = 0; bx < levelWidth[l - 1]; bx++) {
+                    counts[l][(by >> 1) * levelWidth[l] + (bx >> 1)] += counts[l - 1][by * levelWidth[l - 1] + bx];
+                }
+            }
+        }
+    }
+
+    /**
+     * Suma delta (+1 se ensucia, -1 se limpia) en todos los niveles que cubren la celda.
+     */
+    void add(int x, int y, int delta) {
+        int bx = x >> leafShift;
+        int by = y >> leafShift;
+        for (int l = 0; l < counts.length; l++) {
+            counts[l][by * levelWidth[l] + bx] += delta;
+            bx >>= 1;
+            by >>= 1;
+        }
+    }
+
+    /**
+     * Índice lineal (y*width+x) de la celda sucia más cercana a (px,py), o -1.
+     */
+    long nearest(int px, int py) {
+        return nearest(px, py, null);
+    }
+
+    /**
+     * Como {@link #nearest(int, int)}, saltando las celdas cuyo índice lineal
+     * cumple excluded (null para no excluir ninguna).
+     */
+    long nearest(int px, int py, LongPredicate excluded) {
+        int top = counts.length - 1;
+        if (counts[top][0] == 0) return -1;
+        long best = -1;
+        int bestDist = Integer.MAX_VALUE;
+        heapSize = 0;
+        push(0, levelBase[top]);
+
+        while (heapSize > 0) {
+            long entry = pop();
+            int bound = (int) (entry >>> 32);
+            if (bound >= bestDist) break;
+            int node = (int) entry;
+            int level = levelOf(node);
+            int index = node - levelBase[level];
+            int bx = index % levelWidth[level];
+            int by = index / levelWidth[level];
+
+            if (level == 0) {
+                int x0 = bx << leafShift;
+                int y0 = by << leafShift;
+                int x1 = Math.min(x0 + leaf, width);
+                int y1 = Math.min(y0 + leaf, height);
+                if (excluded == null && counts[0][index] == (long) (x1 - x0) * (y1 - y0)) {
+                    // Bloque entero sucio: la más cercana es el punto del bloque más próximo
+                    bestDist = bound;
+                    best = (long) Math.min(Math.max(py, y0), y1 - 1) * width + Math.min(Math.max(px, x0), x1 - 1);
+                    continue;
+                }
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        if (cells.isObstacle(x, y) || cells.isCleaned(x, y)) continue;
+                        int d = Math.abs(x - px) + Math.abs(y - py);
+                        if (d < bestDist && (excluded == null || !excluded.test((long) y * width + x))) {
+                            bestDist = d;
+                            best = (long) y * width + x;
+                        }
+                    }
+                }
+                continue;
+            }
+
+            int child = level - 1;
+            for (int cy = by << 1; cy <= (by << 1) + 1 && cy < levelHeight[child]; cy++) {
+                for (int cx = bx << 1; cx <= (bx << 1) + 1 && cx < levelWidth[child]; cx++) {
+                    int childIndex = cy * levelWidth[child] + cx;
+                    if (counts[child][childIndex] == 0) continue;
+                    int d = boundDistance(child, cx, cy, px, py);
+                    if (d < bestDist) push(d, levelBase[child] + childIndex);
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Distancia Manhattan mínima desde el punto al rectángulo del nodo. */
+    private int boundDistance(int level, int bx, int by, int px, int py) {
+        int shift = leafShift + level;
+        int x0 = bx << shift;
+        int y0 = by << shift;
+        int x1 = Math.min(x0 + (1 << shift), width) - 1;
+        int y1 = Math.min(y0 + (1 << shift), height) - 1;
+        int dx = px < x0 ? x0 - px : (px > x1 ? px - x1 : 0);
+        int dy = py < y0 ? y0 - py : (py > y1 ? py - y1 : 0);
+        return dx + dy;
+    }
+
+    private int levelOf(int node) {
+        int l = 0;
+        while (l + 1 < levelBase.length && levelBase[l + 1] <= node) l++;
+        return l;
+    }
+
+    private void push(int distance, int node) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        long value = ((long) distance << 32) | (node & 0xffffffffL);
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
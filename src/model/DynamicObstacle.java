@@ -29,6 +29,13 @@ public class DynamicObstacle {
         return strategy.getType();
     }
 
+    /**
+     * Reinicia el estado y el azar de la estrategia con la semilla dada.
+     */
+    public void reset(long seed) {
+        strategy.reset(seed);
+    }
+
     /**
      * Actualiza el obstáculo. Retorna true si se movió.
      */
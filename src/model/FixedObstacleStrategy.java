@@ -20,5 +20,10 @@ public class FixedObstacleStrategy implements ObstacleStrategy {
     public ObstacleType getType() {
         return ObstacleType.FIXED;
     }
+
+    @Override
+    public boolean isIdleAt(int robotMoveCount) {
+        return true;
+    }
 }
 
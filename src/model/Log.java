@@ -0,0 +1,27 @@
+package model;
+
+/**
+ * Mensajes de la simulación por consola. Cada hilo puede silenciarlos, de
+ * modo que el motor sin interfaz o las ejecuciones por lotes no pagan la
+ * escritura en consola mientras la GUI sigue mostrando los suyos.
+ */
+public final class Log {
+    private static final ThreadLocal<Boolean> QUIET = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private Log() {}
+
+    public static void println(String message) {
+        if (!QUIET.get()) System.out.println(message);
+    }
+
+    /**
+     * Silencia (o reactiva) los mensajes del hilo actual.
+     */
+    public static void setQuiet(boolean quiet) {
+        QUIET.set(quiet);
+    }
+
+    public static boolean isQuiet() {
+        return QUIET.get();
+    }
+}
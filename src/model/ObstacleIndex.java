@@ -0,0 +1,101 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Índice de ocupación de obstáculos dinámicos: tabla hash de direccionamiento
+ * abierto con clave (x,y) empaquetada en un long. Las consultas por celda son
+ * O(1) y la memoria depende del número de obstáculos, no del tamaño de la rejilla.
+ */
+final class ObstacleIndex {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys = new long[16];
+    private DynamicObstacle[] values = new DynamicObstacle[16];
+    private int size = 0;
+
+    ObstacleIndex() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    static long key(int x, int y) {
+        return Position.pack(x, y);
+    }
+
+    DynamicObstacle get(int x, int y) {
+        if (size == 0) return null;
+        long key = key(x, y);
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return values[i];
+            if (k == EMPTY) return null;
+        }
+    }
+
+    /**
+     * Registra el obstáculo en la celda si no había otro (se conserva el primero).
+     */
+    void putIfAbsent(int x, int y, DynamicObstacle obstacle) {
+        if ((size + 1) * 2 > keys.length) resize(keys.length * 2);
+        long key = key(x, y);
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) return;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = obstacle;
+        size++;
+    }
+
+    /**
+     * Quita la entrada de la celda; si expected no es null solo la quita cuando apunta a él.
+     */
+    void remove(int x, int y, DynamicObstacle expected) {
+        if (size == 0) return;
+        long key = key(x, y);
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) return;
+            i = (i + 1) & mask;
+        }
+        if (expected != null && values[i] != expected) return;
+        size--;
+        // Borrado con desplazamiento hacia atrás para no romper las cadenas de sondeo
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        DynamicObstacle[] oldValues = values;
+        keys = new long[capacity];
+        values = new DynamicObstacle[capacity];
+        Arrays.fill(keys, EMPTY);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == EMPTY) continue;
+            int i = slot(oldKeys[j], mask);
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -23,5 +23,39 @@ public interface ObstacleStrategy {
      * Obtiene el tipo de obstáculo para visualización.
      */
     ObstacleType getType();
+
+    /**
+     * Indica si update no moverá el obstáculo mientras el contador de
+     * movimientos del robot siga valiendo robotMoveCount (el robot está
+     * quieto). Permite adelantar tiempo simulado sin ejecutar los ticks.
+     * Por defecto no se sabe, así que se responde que no.
+     */
+    default boolean isIdleAt(int robotMoveCount) {
+        return false;
+    }
+
+    /**
+     * Reinicia el estado interno de la estrategia y su generador aleatorio
+     * con la semilla indicada. La habitación lo llama al añadir el obstáculo
+     * y al cambiar su semilla ({@link Room#setSeed(long)}), con la semilla
+     * propia si {@link #hasOwnSeed()}, así que con la misma semilla los
+     * obstáculos se mueven igual. Por defecto no hace nada.
+     */
+    default void reset(long seed) {}
+
+    /**
+     * Indica si la estrategia se creó con su propia semilla, que la habitación
+     * usa en lugar de la suya. Por defecto no.
+     */
+    default boolean hasOwnSeed() {
+        return false;
+    }
+
+    /**
+     * Semilla propia de la estrategia; solo vale si {@link #hasOwnSeed()}.
+     */
+    default long getOwnSeed() {
+        return 0;
+    }
 }
 
@@ -0,0 +1,152 @@
+package model;
+
+/**
+ * Almacenamiento denso con un bit por celda y por indicador en long[].
+ * Cada fila ocupa un número entero de palabras (stride), de modo que las
+ * filas no comparten palabras y las operaciones masivas trabajan de 64 en
+ * 64 celdas. Los bits de relleno al final de cada fila siempre valen 0.
+ */
+public class PackedCellStorage implements CellStorage {
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final long lastWordMask;
+    private final long[] obstacle;
+    private final long[] cleaned;
+    private final long[] charger;
+
+    public PackedCellStorage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = (width + 63) >>> 6;
+        int rem = width & 63;
+        this.lastWordMask = rem == 0 ? -1L : (1L << rem) - 1;
+        long words = (long) stride * height;
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Rejilla demasiado grande para almacenamiento denso: " + width + "x" + height);
+        }
+        this.obstacle = new long[(int) words];
+        this.cleaned = new long[(int) words];
+        this.charger = new long[(int) words];
+    }
+
+    @Override public int getWidth() { return width; }
+    @Override public int getHeight() { return height; }
+
+    private int word(int x, int y) {
+        return y * stride + (x >>> 6);
+    }
+
+    @Override
+    public boolean isObstacle(int x, int y) {
+        return (obstacle[word(x, y)] & (1L << x)) != 0;
+    }
+
+    @Override
+    public void setObstacle(int x, int y, boolean value) {
+        set(obstacle, x, y, value);
+    }
+
+    @Override
+    public boolean isCleaned(int x, int y) {
+        return (cleaned[word(x, y)] & (1L << x)) != 0;
+    }
+
+    @Override
+    public void setCleaned(int x, int y, boolean value) {
+        set(cleaned, x, y, value);
+    }
+
+    @Override
+    public boolean hasCharger(int x, int y) {
+        return (charger[word(x, y)] & (1L << x)) != 0;
+    }
+
+    @Override
+    public void setCharger(int x, int y, boolean value) {
+        set(charger, x, y, value);
+    }
+
+    @Override
+    public long word(Plane plane, int x, int y) {
+        return plane(plane)[word(x, y)];
+    }
+
+    @Override
+    public void setWord(Plane plane, int x, int y, long bits) {
+        plane(plane)[word(x, y)] = bits & mask(x >>> 6);
+    }
+
+    private long[] plane(Plane plane) {
+        switch (plane) {
+            case OBSTACLE: return obstacle;
+            case CLEANED: return cleaned;
+            default: return charger;
+        }
+    }
+
+    private void set(long[] plane, int x, int y, boolean value) {
+        int w = word(x, y);
+        if (value) plane[w] |= 1L << x; else plane[w] &= ~(1L << x);
+    }
+
+    @Override
+    public long countCleanable() {
+        long count = 0;
+        for (int y = 0; y < height; y++) {
+            int base = y * stride;
+            for (int i = 0; i < stride; i++) {
+                count += Long.bitCount(~obstacle[base + i] & mask(i));
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long countCleaned() {
+        long count = 0;
+        for (int i = 0; i < cleaned.length; i++) {
+            count += Long.bitCount(cleaned[i] & ~obstacle[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public long countDirty(int x0, int y0, int x1, int y1) {
+        long count = 0;
+        for (int y = y0; y < y1; y++) {
+            int base = y * stride;
+            for (int i = x0 >>> 6; i <= (x1 - 1) >>> 6; i++) {
+                long dirty = ~cleaned[base + i] & ~obstacle[base + i] & mask(i);
+                if (i == x0 >>> 6) dirty &= -1L << x0;
+                if (i == (x1 - 1) >>> 6 && (x1 & 63) != 0) dirty &= (1L << x1) - 1;
+                count += Long.bitCount(dirty);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long nextDirty(long from) {
+        if (from < 0) from = 0;
+        int y = (int) (from / width);
+        int x = (int) (from % width);
+        while (y < height) {
+            int base = y * stride;
+            for (int i = x >>> 6; i < stride; i++) {
+                long dirty = ~cleaned[base + i] & ~obstacle[base + i] & mask(i);
+                if (i == x >>> 6) dirty &= -1L << x; // descartar las celdas anteriores a from
+                if (dirty != 0) {
+                    return (long) y * width + (i << 6) + Long.numberOfTrailingZeros(dirty);
+                }
+            }
+            y++;
+            x = 0;
+        }
+        return -1;
+    }
+
+    private long mask(int wordInRow) {
+        return wordInRow == stride - 1 ? lastWordMask : -1L;
+    }
+}
@@ -22,7 +22,28 @@ public class Position {
 
     @Override
     public int hashCode() {
-        return 31 * x + y;
+        // Mezcla de las coordenadas empaquetadas: 31*x+y colisiona mucho en rejillas anchas
+        long h = pack(x, y) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Coordenadas empaquetadas en un long (x en la mitad alta, y en la baja).
+     */
+    public long pack() {
+        return pack(x, y);
+    }
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) packed;
     }
 
     @Override
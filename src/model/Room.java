@@ -2,82 +2,248 @@ package model;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
 
 /**
  * Representa la habitación como una rejilla de celdas.
+ * Los indicadores de cada celda se guardan en un {@link CellStorage}
+ * (bitsets empaquetados, ver {@link PackedCellStorage}, o baldosas
+ * perezosas en rejillas muy grandes, ver {@link TiledCellStorage}).
  */
 public class Room {
     private final int width;
     private final int height;
-    private final Cell[][] cells;
+    private final CellStorage cells;
     private final List<DynamicObstacle> dynamicObstacles = new ArrayList<>();
+    // Índice (x,y) -> obstáculo dinámico, sincronizado con la lista
+    private final ObstacleIndex obstacleIndex = new ObstacleIndex();
+    private DynamicObstacle charger = null;
+    private final List<RoomListener> listeners = new ArrayList<>();
+
+    // Semilla de la que sale el azar de cada obstáculo dinámico, en orden de llegada
+    private long seed = 0;
+    private long seededObstacles = 0;
+
+    // Recuentos vivos: se actualizan en cada cambio de obstáculo o limpieza
+    private long cleanableCount;
+    private long cleanedCount;
+    // Índice jerárquico de suciedad; se crea en la primera consulta de cercanía
+    private DirtyCellIndex dirtyIndex = null;
+
+    // Versión de la rejilla y diario circular de las últimas celdas cambiadas
+    /** Cambios que conserva el diario (ver {@link #changesSince}). */
+    public static final int JOURNAL_CAPACITY = 4096;
+    private final long[] journal = new long[JOURNAL_CAPACITY];
+    private long version = 0;
+    // Las versiones anteriores a esta no se pueden reproducir (tras una edición masiva)
+    private long journalFloor = 0;
+
+    // Posiciones compartidas (inmutables) por celda, solo en habitaciones razonables
+    private static final int POSITION_POOL_LIMIT = 1 << 20;
+    private Position[] positionPool = null;
+
+    // A partir de este número de celdas se usan baldosas perezosas en vez de bitsets densos
+    private static final long TILED_THRESHOLD = 1L << 26;
 
     public Room(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.cells = new Cell[width][height];
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                this.cells[x][y] = new Cell();
-                // Todas las celdas empiezan sucias (no limpiadas)
-                this.cells[x][y].setCleaned(false);
-            }
-        }
+        // Todas las celdas empiezan sucias (no limpiadas)
+        this((long) width * height > TILED_THRESHOLD
+            ? new TiledCellStorage(width, height)
+            : new PackedCellStorage(width, height));
+    }
+
+    public Room(CellStorage storage) {
+        this.width = storage.getWidth();
+        this.height = storage.getHeight();
+        this.cells = storage;
+        this.cleanableCount = storage.countCleanable();
+        this.cleanedCount = storage.countCleaned();
     }
 
     public int getWidth() { return width; }
     public int getHeight() { return height; }
 
     public boolean inBounds(Position p) {
-        return p.x >= 0 && p.x < width && p.y >= 0 && p.y < height;
+        return inBounds(p.x, p.y);
     }
 
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public boolean inBounds(long packed) {
+        return inBounds(Position.unpackX(packed), Position.unpackY(packed));
+    }
+
+    /**
+     * Posición (x,y) compartida: dentro de la rejilla se devuelve siempre la
+     * misma instancia, así que los recorridos por la habitación no crean objetos.
+     */
+    public Position position(int x, int y) {
+        if (!inBounds(x, y) || (long) width * height > POSITION_POOL_LIMIT) return new Position(x, y);
+        if (positionPool == null) positionPool = new Position[width * height];
+        int i = y * width + x;
+        Position p = positionPool[i];
+        if (p == null) {
+            p = new Position(x, y);
+            positionPool[i] = p;
+        }
+        return p;
+    }
+
+    /**
+     * Vista de la celda respaldada por el almacenamiento de la habitación.
+     */
     public Cell getCell(Position p) {
         if (!inBounds(p)) return null;
-        return cells[p.x][p.y];
+        return new CellView(p.x, p.y);
     }
 
     public boolean isObstacle(Position p) {
-        Cell c = getCell(p);
-        return c != null && c.isObstacle();
+        return isObstacle(p.x, p.y);
+    }
+
+    public boolean isObstacle(int x, int y) {
+        return inBounds(x, y) && cells.isObstacle(x, y);
+    }
+
+    public boolean isObstacle(long packed) {
+        return isObstacle(Position.unpackX(packed), Position.unpackY(packed));
     }
 
     public void setObstacle(Position p, boolean obs) {
-        Cell c = getCell(p);
-        if (c != null) c.setObstacle(obs);
+        setObstacle(p.x, p.y, obs);
+    }
+
+    public void setObstacle(int x, int y, boolean obs) {
+        if (inBounds(x, y) && cells.isObstacle(x, y) != obs) {
+            cells.setObstacle(x, y, obs);
+            int delta = obs ? -1 : 1;
+            cleanableCount += delta;
+            if (cells.isCleaned(x, y)) cleanedCount += delta;
+            else if (dirtyIndex != null) dirtyIndex.add(x, y, delta);
+            recordChange(x, y);
+            fireObstacleChanged(x, y);
+        }
+    }
+
+    /**
+     * Fija de golpe los obstáculos de la fila y: el bit i de words[k] es la
+     * celda x = 64*k + i. Pensado para importadores y generadores. Mantiene
+     * recuentos, índice de suciedad y observadores, pero no anota las celdas
+     * en el diario: quien pregunte por cambios anteriores tendrá que recalcular.
+     */
+    public void setObstacleRow(int y, long[] words) {
+        if (y < 0 || y >= height) return;
+        boolean changed = false;
+        for (int k = 0; k < words.length && (k << 6) < width; k++) {
+            int x = k << 6;
+            long mask = width - x >= 64 ? -1L : (1L << (width - x)) - 1;
+            long before = cells.word(CellStorage.Plane.OBSTACLE, x, y);
+            long after = words[k] & mask;
+            long diff = before ^ after;
+            if (diff == 0) continue;
+            changed = true;
+            cells.setWord(CellStorage.Plane.OBSTACLE, x, y, after);
+
+            long cleanedWord = cells.word(CellStorage.Plane.CLEANED, x, y);
+            long added = diff & after;
+            long removed = diff & before;
+            cleanableCount += Long.bitCount(removed) - Long.bitCount(added);
+            cleanedCount += Long.bitCount(removed & cleanedWord) - Long.bitCount(added & cleanedWord);
+            if (dirtyIndex == null && listeners.isEmpty()) continue;
+            for (long bits = diff; bits != 0; bits &= bits - 1) {
+                int cx = x + Long.numberOfTrailingZeros(bits);
+                if (dirtyIndex != null && (cleanedWord & Long.lowestOneBit(bits)) == 0) {
+                    dirtyIndex.add(cx, y, (added & Long.lowestOneBit(bits)) != 0 ? -1 : 1);
+                }
+                fireObstacleChanged(cx, y);
+            }
+        }
+        if (changed) {
+            version++;
+            journalFloor = version;
+        }
     }
 
     public boolean isCleaned(Position p) {
-        Cell c = getCell(p);
-        return c != null && c.isCleaned();
+        return isCleaned(p.x, p.y);
+    }
+
+    public boolean isCleaned(int x, int y) {
+        return inBounds(x, y) && cells.isCleaned(x, y);
+    }
+
+    public boolean isCleaned(long packed) {
+        return isCleaned(Position.unpackX(packed), Position.unpackY(packed));
+    }
+
+    /**
+     * Indica si el robot puede entrar en la celda: dentro de la rejilla y sin
+     * obstáculo (el cargador es transitable aunque esté marcado como obstáculo).
+     * Versión sin asignaciones usada por los buscadores de rutas.
+     */
+    public boolean isPassable(int x, int y) {
+        if (!inBounds(x, y)) return false;
+        return !cells.isObstacle(x, y) || hasChargerAt(x, y);
+    }
+
+    public boolean isPassable(long packed) {
+        return isPassable(Position.unpackX(packed), Position.unpackY(packed));
     }
 
     public void setCleaned(Position p, boolean cleaned) {
-        Cell c = getCell(p);
-        if (c != null) c.setCleaned(cleaned);
+        setCleaned(p.x, p.y, cleaned);
+    }
+
+    /**
+     * Marca la celda como limpia o sucia (el robot al pasar, el gato al ensuciar)
+     * y mantiene el recuento de celdas limpias.
+     */
+    public void setCleaned(int x, int y, boolean cleaned) {
+        if (!inBounds(x, y) || cells.isCleaned(x, y) == cleaned) return;
+        cells.setCleaned(x, y, cleaned);
+        if (!cells.isObstacle(x, y)) {
+            cleanedCount += cleaned ? 1 : -1;
+            if (dirtyIndex != null) dirtyIndex.add(x, y, cleaned ? -1 : 1);
+        }
+        recordChange(x, y);
     }
 
     public void setCharger(Position p, boolean charger) {
-        Cell c = getCell(p);
-        if (c != null) c.setCharger(charger);
+        setCharger(p.x, p.y, charger);
+    }
+
+    public void setCharger(int x, int y, boolean charger) {
+        if (!inBounds(x, y) || cells.hasCharger(x, y) == charger) return;
+        cells.setCharger(x, y, charger);
+        recordChange(x, y);
     }
 
     public boolean hasCharger(Position p) {
-        Cell c = getCell(p);
-        return c != null && c.hasCharger();
+        return hasCharger(p.x, p.y);
+    }
+
+    public boolean hasCharger(int x, int y) {
+        return inBounds(x, y) && cells.hasCharger(x, y);
     }
 
+    private static final int[] NEIGHBOR_DX = {1, -1, 0, 0};
+    private static final int[] NEIGHBOR_DY = {0, 0, 1, -1};
+
     public List<Position> getNeighbors(Position p) {
         if (!inBounds(p)) return Collections.emptyList();
-        List<Position> res = new ArrayList<>();
-        int[][] deltas = {{1,0},{-1,0},{0,1},{0,-1}};
-        for (int[] d : deltas) {
-            Position np = new Position(p.x + d[0], p.y + d[1]);
+        List<Position> res = new ArrayList<>(4);
+        for (int d = 0; d < 4; d++) {
+            int nx = p.x + NEIGHBOR_DX[d];
+            int ny = p.y + NEIGHBOR_DY[d];
             // El cargador es transitable, solo los obstáculos fijos bloquean
-            boolean isBlocked = isObstacle(np) && !hasChargerAt(np);
-            if (inBounds(np) && !isBlocked) {
-                res.add(np);
+            if (isPassable(nx, ny)) {
+                res.add(position(nx, ny));
             }
         }
         return res;
@@ -87,8 +253,7 @@ public class Room {
         List<Position> res = new ArrayList<>();
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
-                Position p = new Position(x,y);
-                if (!isObstacle(p)) res.add(p);
+                if (!cells.isObstacle(x, y)) res.add(position(x, y));
             }
         }
         return res;
@@ -96,33 +261,117 @@ public class Room {
 
     /**
      * Obtiene todas las posiciones que aún no han sido limpiadas.
+     * Materializa la lista; para recorrerlas sin copiar usar {@link #dirtyCells()}.
      */
     public List<Position> getUncleanedPositions() {
         List<Position> res = new ArrayList<>();
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Position p = new Position(x, y);
-                if (!isObstacle(p) && !isCleaned(p)) {
-                    res.add(p);
-                }
-            }
-        }
+        for (Position p : dirtyCells()) res.add(p);
         return res;
     }
 
     /**
-     * Verifica si todas las celdas limpiables han sido limpiadas.
+     * Vista perezosa de las celdas sucias: cada posición se busca en el
+     * almacenamiento al avanzar el iterador.
      */
-    public boolean isFullyCleaned() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Position p = new Position(x, y);
-                if (!isObstacle(p) && !isCleaned(p)) {
-                    return false;
-                }
+    public Iterable<Position> dirtyCells() {
+        return () -> new Iterator<Position>() {
+            private long next = cells.nextDirty(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
             }
-        }
-        return true;
+
+            @Override
+            public Position next() {
+                if (next < 0) throw new NoSuchElementException();
+                Position p = position((int) (next % width), (int) (next / width));
+                next = cells.nextDirty(next + 1);
+                return p;
+            }
+        };
+    }
+
+    /**
+     * Celda sucia más cercana en distancia Manhattan (sin tener en cuenta
+     * paredes), o null si no queda ninguna. Usa un índice jerárquico de
+     * recuentos, así que no recorre todas las celdas sucias.
+     */
+    public Position findNearestDirtyCell(Position from) {
+        if (isFullyCleaned()) return null;
+        if (dirtyIndex == null) dirtyIndex = new DirtyCellIndex(cells);
+        long i = dirtyIndex.nearest(from.x, from.y);
+        return i < 0 ? null : position((int) (i % width), (int) (i / width));
+    }
+
+    /**
+     * Como {@link #findNearestDirtyCell(Position)}, saltando las celdas excluidas.
+     */
+    public Position findNearestDirtyCell(Position from, Predicate<Position> excluded) {
+        if (isFullyCleaned()) return null;
+        if (dirtyIndex == null) dirtyIndex = new DirtyCellIndex(cells);
+        long i = dirtyIndex.nearest(from.x, from.y,
+            j -> excluded.test(position((int) (j % width), (int) (j / width))));
+        return i < 0 ? null : position((int) (i % width), (int) (i / width));
+    }
+
+    /**
+     * Verifica si todas las celdas limpiables han sido limpiadas. O(1).
+     */
+    public boolean isFullyCleaned() {
+        return cleanedCount == cleanableCount;
+    }
+
+    /**
+     * Número de celdas sin obstáculo.
+     */
+    public long countCleanableCells() {
+        return cleanableCount;
+    }
+
+    /**
+     * Número de celdas sin obstáculo ya limpias.
+     */
+    public long countCleanedCells() {
+        return cleanedCount;
+    }
+
+    /**
+     * Número de celdas sin obstáculo que siguen sucias.
+     */
+    public long countDirtyCells() {
+        return cleanableCount - cleanedCount;
+    }
+
+    /**
+     * Porcentaje de celdas limpiables ya limpias (0-100).
+     */
+    public double getCoveragePercentage() {
+        return cleanableCount == 0 ? 100.0 : (cleanedCount * 100.0) / cleanableCount;
+    }
+
+    /**
+     * Bits de las 64 celdas de la fila y a partir de x (múltiplo de 64) para
+     * el indicador dado; permite volcar la rejilla sin consultar celda a celda.
+     */
+    public long getWord(CellStorage.Plane plane, int x, int y) {
+        return cells.word(plane, x, y);
+    }
+
+    /**
+     * Primera celda sucia a partir del índice lineal from (y*width+x), o -1.
+     */
+    public long nextDirtyCell(long from) {
+        return cells.nextDirty(from);
+    }
+
+    /**
+     * Indica si todas las celdas limpiables tienen el mismo coste de paso
+     * (todas limpias o todas sucias), de modo que la penalización por celda
+     * limpia no altera qué ruta es la más corta.
+     */
+    public boolean hasUniformTraversalCost() {
+        return cleanedCount == 0 || cleanedCount == cleanableCount;
     }
 
     // Métodos para obstáculos dinámicos
@@ -131,8 +380,51 @@ public class Room {
      * Añade un obstáculo dinámico (ej: gato).
      */
     public void addDynamicObstacle(DynamicObstacle obstacle) {
+        Position pos = obstacle.getPosition();
+        obstacle.reset(seedFor(obstacle));
         dynamicObstacles.add(obstacle);
-        setObstacle(obstacle.getPosition(), true);
+        obstacleIndex.putIfAbsent(pos.x, pos.y, obstacle);
+        if (charger == null && obstacle.getType() == ObstacleType.CHARGER) charger = obstacle;
+        setObstacle(pos, true);
+        // Un cargador hace transitable la celda aunque ya fuera obstáculo
+        recordChange(pos.x, pos.y);
+        fireObstacleChanged(pos.x, pos.y);
+    }
+
+    /**
+     * Fija la semilla de la habitación y reinicia con ella, en orden, los
+     * obstáculos dinámicos actuales; los que traen semilla propia vuelven a
+     * empezar con la suya. Los que se añadan después reciben las semillas
+     * siguientes. Con la misma semilla, los mismos obstáculos y los mismos
+     * movimientos del robot, la simulación se repite exactamente.
+     * Por defecto la semilla es 0, para que pruebas y lotes sean reproducibles
+     * sin más; la GUI pone una distinta a cada habitación.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.seededObstacles = 0;
+        for (DynamicObstacle obstacle : dynamicObstacles) {
+            obstacle.reset(seedFor(obstacle));
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    private long seedFor(DynamicObstacle obstacle) {
+        // La semilla se consume siempre para que las de los siguientes no dependan de la propia
+        long derived = nextObstacleSeed();
+        ObstacleStrategy strategy = obstacle.getStrategy();
+        return strategy.hasOwnSeed() ? strategy.getOwnSeed() : derived;
+    }
+
+    private long nextObstacleSeed() {
+        // Finalizador de SplitMix64 sobre (semilla, orden de llegada)
+        long z = seed + ++seededObstacles * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     /**
@@ -140,23 +432,24 @@ public class Room {
      */
     public void removeDynamicObstacleAt(Position pos) {
         dynamicObstacles.removeIf(obs -> obs.getPosition().equals(pos));
+        obstacleIndex.remove(pos.x, pos.y, null);
+        if (charger != null && charger.getPosition().equals(pos)) charger = findFirstCharger();
         setObstacle(pos, false);
+        recordChange(pos.x, pos.y);
+        fireObstacleChanged(pos.x, pos.y);
     }
 
     /**
      * Obtiene el obstáculo dinámico en una posición.
      */
     public DynamicObstacle getDynamicObstacleAt(Position pos) {
-        for (DynamicObstacle obs : dynamicObstacles) {
-            if (obs.getPosition().equals(pos)) {
-                return obs;
-            }
-        }
-        return null;
+        return obstacleIndex.get(pos.x, pos.y);
     }
 
     /**
      * Actualiza todos los obstáculos dinámicos.
+     * Los obstáculos deben moverse por aquí (no con setPosition) para que el
+     * índice de ocupación siga sincronizado.
      */
     public void updateDynamicObstacles(int robotMoveCount) {
         for (DynamicObstacle obstacle : dynamicObstacles) {
@@ -165,10 +458,15 @@ public class Room {
 
             if (moved) {
                 Position newPos = obstacle.getPosition();
+                obstacleIndex.remove(oldPos.x, oldPos.y, obstacle);
+                obstacleIndex.putIfAbsent(newPos.x, newPos.y, obstacle);
                 // Quitar obstáculo de la posición anterior
                 setObstacle(oldPos, false);
                 // Poner obstáculo en la nueva posición
                 setObstacle(newPos, true);
+                // Cambia quién ocupa las celdas aunque el indicador de obstáculo no cambie
+                recordChange(oldPos.x, oldPos.y);
+                recordChange(newPos.x, newPos.y);
             }
         }
     }
@@ -184,7 +482,11 @@ public class Room {
      * Verifica si hay un gato en una posición.
      */
     public boolean hasCatAt(Position pos) {
-        DynamicObstacle obs = getDynamicObstacleAt(pos);
+        return hasCatAt(pos.x, pos.y);
+    }
+
+    public boolean hasCatAt(int x, int y) {
+        DynamicObstacle obs = obstacleIndex.get(x, y);
         return obs != null && obs.getType() == ObstacleType.CAT;
     }
 
@@ -196,16 +498,91 @@ public class Room {
         return obs != null && obs.getType() == ObstacleType.CHARGER;
     }
 
+    public boolean hasChargerAt(int x, int y) {
+        DynamicObstacle obs = obstacleIndex.get(x, y);
+        return obs != null && obs.getType() == ObstacleType.CHARGER;
+    }
+
+    // Versión y diario de cambios
+
+    /**
+     * Versión de la rejilla: crece en cada cambio de obstáculo, limpieza,
+     * cargador u obstáculo dinámico. Si no se ha movido, nada ha cambiado.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Entrega (empaquetadas, ver {@link Position#pack}) las celdas cambiadas
+     * desde la versión indicada, en orden y posiblemente repetidas.
+     * @return false si el diario ya no conserva todos esos cambios; en ese
+     *         caso no se entrega nada y hay que recalcular todo
+     */
+    public boolean changesSince(long since, LongConsumer consumer) {
+        if (since < journalFloor || since > version || version - since > JOURNAL_CAPACITY) return false;
+        for (long v = since; v < version; v++) {
+            consumer.accept(journal[(int) (v & (JOURNAL_CAPACITY - 1))]);
+        }
+        return true;
+    }
+
+    private void recordChange(int x, int y) {
+        journal[(int) (version & (JOURNAL_CAPACITY - 1))] = Position.pack(x, y);
+        version++;
+    }
+
+    // Observadores de cambios en la rejilla
+
+    public void addListener(RoomListener listener) {
+        if (!listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public void removeListener(RoomListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireObstacleChanged(int x, int y) {
+        for (RoomListener l : listeners) {
+            l.onObstacleChanged(x, y);
+        }
+    }
+
     /**
      * Obtiene la posición del cargador.
      */
     public Position getChargerPosition() {
+        return charger != null ? charger.getPosition() : null;
+    }
+
+    private DynamicObstacle findFirstCharger() {
         for (DynamicObstacle obs : dynamicObstacles) {
             if (obs.getType() == ObstacleType.CHARGER) {
-                return obs.getPosition();
+                return obs;
             }
         }
         return null;
     }
-}
 
+    /**
+     * Celda cuyos indicadores se leen y escriben en el almacenamiento de la habitación.
+     */
+    private class CellView extends Cell {
+        private final int x;
+        private final int y;
+
+        CellView(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override public boolean isObstacle() { return cells.isObstacle(x, y); }
+        @Override public void setObstacle(boolean obstacle) { Room.this.setObstacle(x, y, obstacle); }
+
+        @Override public boolean isCleaned() { return cells.isCleaned(x, y); }
+        @Override public void setCleaned(boolean cleaned) { Room.this.setCleaned(x, y, cleaned); }
+
+        @Override public boolean hasCharger() { return cells.hasCharger(x, y); }
+        @Override public void setCharger(boolean charger) { Room.this.setCharger(x, y, charger); }
+    }
+}
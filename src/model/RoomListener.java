@@ -0,0 +1,12 @@
+package model;
+
+/**
+ * Observador de cambios estructurales en la habitación.
+ */
+public interface RoomListener {
+    /**
+     * Se invoca cuando cambia la transitabilidad de una celda
+     * (obstáculo puesto o quitado, o cargador añadido o retirado).
+     */
+    void onObstacleChanged(int x, int y);
+}
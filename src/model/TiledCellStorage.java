@@ -0,0 +1,276 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Almacenamiento por baldosas de 64x64 celdas para rejillas muy grandes.
+ * Cada baldosa guarda una palabra de 64 bits por fila y por indicador, y
+ * solo se crea al escribir en ella. Las baldosas uniformes (todo libre y
+ * sucio, todo obstáculo o todo limpio) se representan con una instancia
+ * compartida de solo lectura, así que la memoria depende de la complejidad
+ * del mapa y no de su superficie.
+ */
+public class TiledCellStorage implements CellStorage {
+    private static final int SHIFT = 6;
+    private static final int SIZE = 1 << SHIFT;
+    private static final int MASK = SIZE - 1;
+
+    // Baldosas compartidas; una entrada null del directorio equivale a FREE
+    private static final Tile FREE = new Tile(0L, 0L);
+    private static final Tile OBSTACLE = new Tile(-1L, 0L);
+    private static final Tile CLEAN = new Tile(0L, -1L);
+
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int tilesY;
+    private final Tile[] tiles;
+
+    public TiledCellStorage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.tilesX = (width + MASK) >>> SHIFT;
+        this.tilesY = (height + MASK) >>> SHIFT;
+        long count = (long) tilesX * tilesY;
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Rejilla demasiado grande: " + width + "x" + height);
+        }
+        this.tiles = new Tile[(int) count];
+    }
+
+    @Override public int getWidth() { return width; }
+    @Override public int getHeight() { return height; }
+
+    /**
+     * Número de baldosas con datos propios (no compartidas).
+     */
+    public int countAllocatedTiles() {
+        int count = 0;
+        for (Tile t : tiles) {
+            if (t != null && !t.shared) count++;
+        }
+        return count;
+    }
+
+    private Tile tile(int tx, int ty) {
+        Tile t = tiles[ty * tilesX + tx];
+        return t != null ? t : FREE;
+    }
+
+    @Override
+    public boolean isObstacle(int x, int y) {
+        return (tile(x >>> SHIFT, y >>> SHIFT).obstacle[y & MASK] & (1L << x)) != 0;
+    }
+
+    @Override
+    public void setObstacle(int x, int y, boolean value) {
+        if (isObstacle(x, y) == value) return;
+        Tile t = writable(x, y);
+        set(t.obstacle, x, y, value);
+        collapse(x >>> SHIFT, y >>> SHIFT);
+    }
+
+    @Override
+    public boolean isCleaned(int x, int y) {
+        return (tile(x >>> SHIFT, y >>> SHIFT).cleaned[y & MASK] & (1L << x)) != 0;
+    }
+
+    @Override
+    public void setCleaned(int x, int y, boolean value) {
+        if (isCleaned(x, y) == value) return;
+        Tile t = writable(x, y);
+        set(t.cleaned, x, y, value);
+        collapse(x >>> SHIFT, y >>> SHIFT);
+    }
+
+    @Override
+    public boolean hasCharger(int x, int y) {
+        return (tile(x >>> SHIFT, y >>> SHIFT).charger[y & MASK] & (1L << x)) != 0;
+    }
+
+    @Override
+    public void setCharger(int x, int y, boolean value) {
+        if (hasCharger(x, y) == value) return;
+        Tile t = writable(x, y);
+        set(t.charger, x, y, value);
+        collapse(x >>> SHIFT, y >>> SHIFT);
+    }
+
+    @Override
+    public long word(Plane plane, int x, int y) {
+        return rows(tile(x >>> SHIFT, y >>> SHIFT), plane)[y & MASK] & columnMask(x >>> SHIFT);
+    }
+
+    @Override
+    public void setWord(Plane plane, int x, int y, long bits) {
+        int tx = x >>> SHIFT;
+        int ty = y >>> SHIFT;
+        long mask = columnMask(tx);
+        Tile t = tile(tx, ty);
+        // Si la palabra coincide con la baldosa compartida no hace falta crearla
+        if (!t.shared || ((rows(t, plane)[y & MASK] ^ bits) & mask) != 0) {
+            t = writable(x, y);
+            long[] rows = rows(t, plane);
+            rows[y & MASK] = (rows[y & MASK] & ~mask) | (bits & mask);
+        }
+        // Al completar la última fila de la baldosa se comprueba si ha quedado uniforme
+        if ((y & MASK) == rowCount(ty) - 1 && !t.shared) collapse(tx, ty);
+    }
+
+    private static long[] rows(Tile t, Plane plane) {
+        switch (plane) {
+            case OBSTACLE: return t.obstacle;
+            case CLEANED: return t.cleaned;
+            default: return t.charger;
+        }
+    }
+
+    private static void set(long[] rows, int x, int y, boolean value) {
+        if (value) rows[y & MASK] |= 1L << x; else rows[y & MASK] &= ~(1L << x);
+    }
+
+    /** Copia privada de la baldosa si aún era compartida. */
+    private Tile writable(int x, int y) {
+        int i = (y >>> SHIFT) * tilesX + (x >>> SHIFT);
+        Tile t = tiles[i] != null ? tiles[i] : FREE;
+        if (t.shared) {
+            t = new Tile(t);
+            tiles[i] = t;
+        }
+        return t;
+    }
+
+    /** Vuelve a compartir la baldosa si tras la escritura ha quedado uniforme. */
+    private void collapse(int tx, int ty) {
+        int i = ty * tilesX + tx;
+        Tile t = tiles[i];
+        long mask = columnMask(tx);
+        int rows = rowCount(ty);
+        if (matches(t, FREE, mask, rows)) tiles[i] = null;
+        else if (matches(t, CLEAN, mask, rows)) tiles[i] = CLEAN;
+        else if (matches(t, OBSTACLE, mask, rows)) tiles[i] = OBSTACLE;
+    }
+
+    private static boolean matches(Tile t, Tile pattern, long mask, int rows) {
+        for (int r = 0; r < rows; r++) {
+            if (((t.obstacle[r] ^ pattern.obstacle[r]) & mask) != 0) return false;
+            if (((t.cleaned[r] ^ pattern.cleaned[r]) & mask) != 0) return false;
+            if ((t.charger[r] & mask) != 0) return false;
+        }
+        return true;
+    }
+
+    /** Bits de la baldosa que caen dentro de la rejilla (la última columna puede ser parcial). */
+    private long columnMask(int tx) {
+        int rem = width - (tx << SHIFT);
+        return rem >= SIZE ? -1L : (1L << rem) - 1;
+    }
+
+    private int rowCount(int ty) {
+        return Math.min(SIZE, height - (ty << SHIFT));
+    }
+
+    @Override
+    public long countCleanable() {
+        long count = 0;
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                Tile t = tile(tx, ty);
+                long mask = columnMask(tx);
+                int rows = rowCount(ty);
+                if (t == OBSTACLE) continue;
+                if (t.shared) {
+                    count += (long) Long.bitCount(mask) * rows;
+                    continue;
+                }
+                for (int r = 0; r < rows; r++) count += Long.bitCount(~t.obstacle[r] & mask);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long countCleaned() {
+        long count = 0;
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                Tile t = tile(tx, ty);
+                long mask = columnMask(tx);
+                int rows = rowCount(ty);
+                if (t == FREE || t == OBSTACLE) continue;
+                if (t == CLEAN) {
+                    count += (long) Long.bitCount(mask) * rows;
+                    continue;
+                }
+                for (int r = 0; r < rows; r++) count += Long.bitCount(t.cleaned[r] & ~t.obstacle[r] & mask);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long countDirty(int x0, int y0, int x1, int y1) {
+        long count = 0;
+        for (int ty = y0 >>> SHIFT; ty <= (y1 - 1) >>> SHIFT; ty++) {
+            int r0 = Math.max(y0, ty << SHIFT) & MASK;
+            int r1 = ((Math.min(y1, (ty + 1) << SHIFT) - 1) & MASK) + 1;
+            for (int tx = x0 >>> SHIFT; tx <= (x1 - 1) >>> SHIFT; tx++) {
+                Tile t = tile(tx, ty);
+                if (t == CLEAN || t == OBSTACLE) continue;
+                int c0 = Math.max(x0, tx << SHIFT) & MASK;
+                int c1 = ((Math.min(x1, (tx + 1) << SHIFT) - 1) & MASK) + 1;
+                if (t == FREE) {
+                    count += (long) (c1 - c0) * (r1 - r0);
+                    continue;
+                }
+                long mask = (c1 == SIZE ? -1L : (1L << c1) - 1) & (-1L << c0);
+                for (int r = r0; r < r1; r++) count += Long.bitCount(~t.cleaned[r] & ~t.obstacle[r] & mask);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long nextDirty(long from) {
+        if (from < 0) from = 0;
+        int y = (int) (from / width);
+        int x = (int) (from % width);
+        while (y < height) {
+            int r = y & MASK;
+            for (int tx = x >>> SHIFT; tx < tilesX; tx++) {
+                Tile t = tile(tx, y >>> SHIFT);
+                if (t == CLEAN || t == OBSTACLE) continue;
+                long dirty = ~t.cleaned[r] & ~t.obstacle[r] & columnMask(tx);
+                if (tx == x >>> SHIFT) dirty &= -1L << x; // descartar las celdas anteriores a from
+                if (dirty != 0) {
+                    return (long) y * width + (tx << SHIFT) + Long.numberOfTrailingZeros(dirty);
+                }
+            }
+            y++;
+            x = 0;
+        }
+        return -1;
+    }
+
+    private static final class Tile {
+        final long[] obstacle = new long[SIZE];
+        final long[] cleaned = new long[SIZE];
+        final long[] charger = new long[SIZE];
+        final boolean shared;
+
+        /** Baldosa compartida con el mismo valor en todas las filas. */
+        Tile(long obstacleRow, long cleanedRow) {
+            Arrays.fill(obstacle, obstacleRow);
+            Arrays.fill(cleaned, cleanedRow);
+            this.shared = true;
+        }
+
+        /** Copia privada y modificable. */
+        Tile(Tile source) {
+            System.arraycopy(source.obstacle, 0, obstacle, 0, SIZE);
+            System.arraycopy(source.cleaned, 0, cleaned, 0, SIZE);
+            System.arraycopy(source.charger, 0, charger, 0, SIZE);
+            this.shared = false;
+        }
+    }
+}
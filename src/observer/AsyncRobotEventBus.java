@@ -0,0 +1,310 @@
+package observer;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Bus de eventos asíncrono: se registra en el robot como un observador más y
+ * reparte los eventos a sus propios observadores desde un hilo consumidor.
+ *
+ * Los eventos pasan por un buffer circular de un productor (el hilo del tick)
+ * y un consumidor. Los huecos son eventos reservados de antemano: publicar
+ * copia los campos del evento en su hueco y avanza un contador, sin reservar
+ * memoria, así que un observador lento (consola, GUI) no frena la
+ * simulación. El consumidor reparte en lotes todo lo publicado desde la
+ * última vez; como con el robot, los observadores no deben guardar el
+ * evento recibido sino una copia.
+ *
+ * Si el buffer se llena, según {@link OverflowPolicy} el evento se descarta
+ * (DROP, por defecto: el tick nunca espera) o el productor espera a que haya
+ * hueco (BLOCK). Cómo espera cada lado lo decide {@link WaitStrategy}.
+ *
+ * Como en el robot, cada observador se puede suscribir solo a algunos tipos
+ * de evento; el consumidor reparte con una tabla precalculada por tipo. Con
+ * {@link #subscribeTo} el bus se suscribe en el robot solo a la unión de esos
+ * tipos, así que los demás ni se publican.
+ */
+public class AsyncRobotEventBus implements RobotObserver, AutoCloseable {
+    /**
+     * Cómo espera el consumidor a que haya eventos (y el productor a que haya
+     * hueco con BLOCK): de menor latencia y más CPU a mayor latencia y menos CPU.
+     */
+    public enum WaitStrategy { BUSY_SPIN, YIELDING, SLEEPING, BLOCKING }
+
+    /**
+     * Qué hacer al publicar con el buffer lleno.
+     */
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long SLEEP_NANOS = 100_000;
+
+    private final RobotEvent[] buffer;
+    private final int mask;
+    private final int maxBatch;
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+    private static final RobotEvent.Type[] EVENT_TYPES = RobotEvent.Type.values();
+
+    // Suscripciones (protegidas por this) y tabla de reparto por tipo que lee el consumidor
+    private final Map<RobotObserver, EnumSet<RobotEvent.Type>> observers = new LinkedHashMap<>();
+    private volatile RobotObserver[][] observersByType = new RobotObserver[EVENT_TYPES.length][0];
+    // Dónde está suscrito el bus (ej: robot::addRobotObserver) y con qué tipos
+    private BiConsumer<RobotObserver, Set<RobotEvent.Type>> source;
+    private EnumSet<RobotEvent.Type> subscribedTypes = EnumSet.noneOf(RobotEvent.Type.class);
+
+    // Siguiente secuencia a escribir (solo la avanza el productor) y a leer (solo el consumidor)
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Solo para WaitStrategy.BLOCKING
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    private volatile boolean waiting = false;
+
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    /**
+     * Bus con 8192 huecos, lotes de hasta 256 eventos, espera SLEEPING y DROP.
+     */
+    public AsyncRobotEventBus() {
+        this(8192, 256, WaitStrategy.SLEEPING, OverflowPolicy.DROP);
+    }
+
+    /**
+     * @param capacity huecos del buffer (se redondea a potencia de dos)
+     * @param maxBatch eventos como mucho por lote del consumidor
+     */
+    public AsyncRobotEventBus(int capacity, int maxBatch, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        if (capacity < 1 || maxBatch < 1) throw new IllegalArgumentException("capacity y maxBatch deben ser >= 1");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.buffer = new RobotEvent[size];
+        for (int i = 0; i < size; i++) buffer[i] = new RobotEvent();
+        this.mask = size - 1;
+        this.maxBatch = maxBatch;
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+        this.consumer = new Thread(this::consume, "robot-event-bus");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Suscribe el observador a todos los tipos de evento (si ya estaba no cambia nada).
+     */
+    public synchronized void addObserver(RobotObserver observer) {
+        if (!observers.containsKey(observer)) addObserver(observer, EnumSet.allOf(RobotEvent.Type.class));
+    }
+
+    /**
+     * Suscribe el observador solo a los tipos indicados; si ya estaba, sus tipos pasan a ser estos.
+     */
+    public synchronized void addObserver(RobotObserver observer, Set<RobotEvent.Type> types) {
+        EnumSet<RobotEvent.Type> copy = EnumSet.noneOf(RobotEvent.Type.class);
+        copy.addAll(types);
+        observers.put(observer, copy);
+        rebuildDispatchTable();
+    }
+
+    public synchronized void removeObserver(RobotObserver observer) {
+        if (observers.remove(observer) != null) rebuildDispatchTable();
+    }
+
+    public synchronized int getObserverCount() {
+        return observers.size();
+    }
+
+    /**
+     * Suscribe el bus en la fuente de eventos indicada (ej:
+     * {@code robot::addRobotObserver}) con la unión de los tipos de sus
+     * observadores, y la vuelve a suscribir cada vez que esa unión cambia.
+     */
+    public synchronized void subscribeTo(BiConsumer<RobotObserver, Set<RobotEvent.Type>> source) {
+        this.source = source;
+        source.accept(this, EnumSet.copyOf(subscribedTypes));
+    }
+
+    /**
+     * Unión de los tipos de evento de los observadores del bus.
+     */
+    public synchronized Set<RobotEvent.Type> getSubscribedTypes() {
+        return EnumSet.copyOf(subscribedTypes);
+    }
+
+    private void rebuildDispatchTable() {
+        RobotObserver[][] table = new RobotObserver[EVENT_TYPES.length][];
+        for (RobotEvent.Type type : EVENT_TYPES) {
+            List<RobotObserver> targets = new ArrayList<>();
+            for (Map.Entry<RobotObserver, EnumSet<RobotEvent.Type>> entry : observers.entrySet()) {
+                if (entry.getValue().contains(type)) targets.add(entry.getKey());
+            }
+            table[type.ordinal()] = targets.toArray(new RobotObserver[0]);
+        }
+        observersByType = table;
+
+        EnumSet<RobotEvent.Type> union = EnumSet.noneOf(RobotEvent.Type.class);
+        for (EnumSet<RobotEvent.Type> types : observers.values()) union.addAll(types);
+        if (!union.equals(subscribedTypes)) {
+            subscribedTypes = union;
+            if (source != null) source.accept(this, EnumSet.copyOf(union));
+        }
+    }
+
+    /**
+     * Publica el evento (llamado por el robot en el hilo del tick).
+     */
+    @Override
+    public void onRobotEvent(RobotEvent event) {
+        publish(event);
+    }
+
+    /**
+     * Publica un evento. Solo debe llamarse desde un único hilo productor.
+     * @return false si se descartó por estar lleno el buffer (o cerrado el bus)
+     */
+    public boolean publish(RobotEvent event) {
+        if (!running) return false;
+        long seq = published.get();
+        if (seq - consumed.get() >= buffer.length) {
+            if (overflowPolicy == OverflowPolicy.DROP) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            int tries = 0;
+            while (seq - consumed.get() >= buffer.length) {
+                if (!running) return false;
+                idle(tries++);
+            }
+        }
+        buffer[(int) seq & mask].copyFrom(event);
+        published.lazySet(seq + 1);
+        if (waiting) signal();
+        return true;
+    }
+
+    private void consume() {
+        int tries = 0;
+        while (true) {
+            long next = consumed.get();
+            long available = published.get();
+            if (available == next) {
+                if (!running) return; // cerrado y sin nada pendiente
+                idle(tries++);
+                continue;
+            }
+            tries = 0;
+            long end = Math.min(available, next + maxBatch);
+            for (long seq = next; seq < end; seq++) {
+                dispatch(buffer[(int) seq & mask]);
+            }
+            consumed.lazySet(end);
+            if (waiting) signal();
+        }
+    }
+
+    private void dispatch(RobotEvent event) {
+        for (RobotObserver observer : observersByType[event.getType().ordinal()]) {
+            try {
+                observer.onRobotEvent(event);
+            } catch (RuntimeException e) {
+                // Un observador que falla no debe parar el reparto a los demás
+                System.err.println("Observador " + observer.getClass().getSimpleName() + " falló: " + e);
+            }
+        }
+    }
+
+    /**
+     * Espera un poco según la estrategia; tries cuenta los intentos seguidos sin progreso.
+     */
+    private void idle(int tries) {
+        switch (waitStrategy) {
+            case BUSY_SPIN:
+                Thread.onSpinWait();
+                break;
+            case YIELDING:
+                if (tries < SPIN_TRIES) Thread.onSpinWait(); else Thread.yield();
+                break;
+            case SLEEPING:
+                if (tries < SPIN_TRIES) Thread.onSpinWait();
+                else if (tries < SPIN_TRIES + YIELD_TRIES) Thread.yield();
+                else LockSupport.parkNanos(SLEEP_NANOS);
+                break;
+            default:
+                lock.lock();
+                try {
+                    waiting = true;
+                    // Con espera acotada: una señal perdida solo cuesta un milisegundo
+                    progress.await(1, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    waiting = false;
+                    lock.unlock();
+                }
+                break;
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Eventos descartados por desbordamiento con la política DROP.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Eventos publicados que el consumidor aún no ha repartido.
+     */
+    public long getPendingCount() {
+        return published.get() - consumed.get();
+    }
+
+    /**
+     * Espera (desde el productor) a que se hayan repartido todos los eventos publicados.
+     */
+    public void flush() throws InterruptedException {
+        long target = published.get();
+        while (consumed.get() < target && consumer.isAlive()) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            LockSupport.parkNanos(SLEEP_NANOS);
+        }
+    }
+
+    /**
+     * Deja de aceptar eventos, reparte los pendientes y para el hilo consumidor.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (waitStrategy == WaitStrategy.BLOCKING) signal();
+        if (Thread.currentThread() == consumer) return;
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -36,7 +36,7 @@ public class ObserverDemo {
         // Registrar observadores
         robot.addRobotObserver(logger);
         robot.addRobotObserver(stats);
-        robot.addRobotObserver(alerts);
+        robot.addRobotObserver(alerts, RobotAlertObserver.TYPES);
 
         System.out.println("Observadores registrados:");
         System.out.println("  - RobotEventLogger (registra todos los eventos)");
@@ -0,0 +1,68 @@
+package observer;
+
+import java.util.Arrays;
+
+/**
+ * Registro de observadores con copia en escritura: registrar o eliminar
+ * crea un array nuevo (con un cerrojo), y notificar solo lee la última
+ * instantánea, sin cerrojos ni ConcurrentModificationException aunque otro
+ * hilo (la GUI) cambie los observadores mientras la simulación notifica.
+ * Un mismo objeto solo se registra una vez (se compara por identidad).
+ */
+public final class ObserverList<T> {
+    private volatile T[] snapshot;
+
+    /**
+     * @param empty array vacío del tipo de los observadores
+     */
+    public ObserverList(T[] empty) {
+        this.snapshot = Arrays.copyOf(empty, 0);
+    }
+
+    /**
+     * @return false si ya estaba registrado
+     */
+    public synchronized boolean add(T observer) {
+        T[] current = snapshot;
+        if (indexOf(current, observer) >= 0) return false;
+        T[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = observer;
+        snapshot = next;
+        return true;
+    }
+
+    /**
+     * @return false si no estaba registrado
+     */
+    public synchronized boolean remove(T observer) {
+        T[] current = snapshot;
+        int i = indexOf(current, observer);
+        if (i < 0) return false;
+        T[] next = Arrays.copyOf(current, current.length - 1);
+        System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+        snapshot = next;
+        return true;
+    }
+
+    /**
+     * Observadores actuales, en orden de registro. El array no se debe modificar.
+     */
+    public T[] snapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return snapshot.length;
+    }
+
+    public boolean isEmpty() {
+        return snapshot.length == 0;
+    }
+
+    private static int indexOf(Object[] array, Object observer) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == observer) return i;
+        }
+        return -1;
+    }
+}
@@ -1,9 +1,19 @@
 package observer;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Observador que muestra alertas críticas del robot.
+ * Solo le interesan los tipos de {@link #TYPES}: conviene suscribirlo solo
+ * a ellos para no recibir los POSITION_CHANGED, los más frecuentes.
  */
 public class RobotAlertObserver implements RobotObserver {
+    public static final Set<RobotEvent.Type> TYPES = Collections.unmodifiableSet(EnumSet.of(
+        RobotEvent.Type.BATTERY_LOW, RobotEvent.Type.RETURNED_TO_CHARGER,
+        RobotEvent.Type.OBSTACLE_DETECTED, RobotEvent.Type.CLEANING_COMPLETED));
+
     private boolean batteryAlertActive = false;
     private int alertCount = 0;
 
@@ -2,6 +2,12 @@ package observer;
 
 /**
  * Evento emitido por el robot cuando cambia su estado.
+ *
+ * Los datos van en campos primitivos (coordenadas, valor entero, id de
+ * estado e instante en nanoTime) para que emitir y consumir eventos no
+ * reserve memoria: el robot reutiliza sus instancias y las rellena antes de
+ * cada notificación. Por eso un observador no debe guardar el evento que
+ * recibe más allá de la llamada; si lo necesita, que guarde {@link #copy()}.
  */
 public class RobotEvent {
     public enum Type {
@@ -14,23 +20,119 @@ public class RobotEvent {
         RETURNED_TO_CHARGER
     }
 
-    private final Type type;
-    private final Object data;
-    private final long timestamp;
+    /** Valor de x, y y stateId cuando el evento no los lleva. */
+    public static final int NONE = Integer.MIN_VALUE;
 
+    // Para traducir nanoTime a hora del sistema sin llamar a currentTimeMillis por evento
+    private static final long WALL_CLOCK_OFFSET_MS = System.currentTimeMillis() - System.nanoTime() / 1_000_000;
+
+    private Type type;
+    private int x = NONE;
+    private int y = NONE;
+    private int value;
+    private int stateId = NONE;
+    private long nanoTime;
+    private Object data;
+
+    /**
+     * Evento vacío para rellenar con {@link #set}.
+     */
+    public RobotEvent() {}
+
+    /**
+     * Evento con un objeto como dato; si es una posición o un número se
+     * copian también a los campos primitivos.
+     */
     public RobotEvent(Type type, Object data) {
+        int x = NONE, y = NONE, value = 0;
+        if (data instanceof model.Position) {
+            x = ((model.Position) data).x;
+            y = ((model.Position) data).y;
+        } else if (data instanceof Number) {
+            value = ((Number) data).intValue();
+        }
+        set(type, x, y, value, NONE, data);
+    }
+
+    /**
+     * Rellena el evento y le pone el instante actual.
+     * @param data objeto asociado ya existente (lectura, posición, nombre del estado) o null
+     * @return this
+     */
+    public RobotEvent set(Type type, int x, int y, int value, int stateId, Object data) {
+        return set(type, x, y, value, stateId, data, System.nanoTime());
+    }
+
+    /**
+     * Como {@link #set(Type, int, int, int, int, Object)} con el instante
+     * dado en lugar del actual (por ejemplo, al leer eventos guardados).
+     */
+    public RobotEvent set(Type type, int x, int y, int value, int stateId, Object data, long nanoTime) {
         this.type = type;
+        this.x = x;
+        this.y = y;
+        this.value = value;
+        this.stateId = stateId;
         this.data = data;
-        this.timestamp = System.currentTimeMillis();
+        this.nanoTime = nanoTime;
+        return this;
+    }
+
+    /**
+     * Copia todos los campos de otro evento (incluido su instante).
+     */
+    public RobotEvent copyFrom(RobotEvent other) {
+        this.type = other.type;
+        this.x = other.x;
+        this.y = other.y;
+        this.value = other.value;
+        this.stateId = other.stateId;
+        this.data = other.data;
+        this.nanoTime = other.nanoTime;
+        return this;
+    }
+
+    /**
+     * Copia independiente, para guardar el evento.
+     */
+    public RobotEvent copy() {
+        return new RobotEvent().copyFrom(this);
     }
 
     public Type getType() { return type; }
+
+    /** Coordenada x asociada (posición, obstáculo, cargador) o NONE. */
+    public int getX() { return x; }
+
+    /** Coordenada y asociada o NONE. */
+    public int getY() { return y; }
+
+    public boolean hasPosition() { return x != NONE; }
+
+    /**
+     * Valor entero del evento: longitud de la ruta (PATH_CALCULATED), nivel de
+     * batería (BATTERY_LOW) o distancia al obstáculo (OBSTACLE_DETECTED de un sensor).
+     */
+    public int getValue() { return value; }
+
+    /**
+     * Id del estado del robot al emitir el evento (en STATE_CHANGED, el nuevo)
+     * según robot.state.RobotState, o NONE si aún no tenía estado.
+     */
+    public int getStateId() { return stateId; }
+
+    /** Instante del evento según System.nanoTime(). */
+    public long getNanoTime() { return nanoTime; }
+
+    /** Objeto asociado, si lo hay (la lectura del sensor, la posición o el nombre del estado). */
     public Object getData() { return data; }
-    public long getTimestamp() { return timestamp; }
+
+    /** Instante del evento en milisegundos de la hora del sistema. */
+    public long getTimestamp() { return WALL_CLOCK_OFFSET_MS + nanoTime / 1_000_000; }
 
     @Override
     public String toString() {
-        return String.format("RobotEvent{type=%s, data=%s, timestamp=%d}", type, data, timestamp);
+        Object shown = data != null ? data : (type == Type.PATH_CALCULATED ? Integer.valueOf(value) : null);
+        return String.format("RobotEvent{type=%s, data=%s, timestamp=%d}", type, shown, getTimestamp());
     }
 }
-
@@ -0,0 +1,303 @@
+package observer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Observador que guarda todos los eventos del robot en un diario binario,
+ * para analizarlos después de ejecuciones largas.
+ *
+ * El diario es un directorio de segmentos (events-000000.journal, ...) de
+ * tamaño fijo proyectados en memoria: cada evento es un registro de 32 bytes
+ * que se escribe directamente en la proyección, sin reservar memoria, y al
+ * llenarse un segmento se abre el siguiente. Cada segmento empieza con una
+ * cabecera de 32 bytes (little-endian):
+ * <pre>
+ *  0  int   MAGIC ("REVJ")
+ *  4  int   VERSION
+ *  8  int   bytes por registro
+ * 12  int   número de segmento
+ * </pre>
+ * y cada registro es:
+ * <pre>
+ *  0  long  tick
+ *  8  int   tipo (ordinal + 1; 0 marca el final de los registros escritos)
+ * 12  int   x
+ * 16  int   y
+ * 20  int   valor
+ * 24  int   id de estado
+ * </pre>
+ * El objeto asociado al evento (getData) no se guarda. El tick lo da la
+ * fuente indicada (por ejemplo el getTick del motor de simulación), así que
+ * el diario debe registrarse directamente en el robot, no detrás de un bus
+ * asíncrono, para que el tick corresponda al evento.
+ */
+public class RobotEventJournal implements RobotObserver, AutoCloseable {
+    public static final int MAGIC = 0x4A564552;
+    public static final int VERSION = 1;
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 32;
+
+    private static final RobotEvent.Type[] TYPES = RobotEvent.Type.values();
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final LongSupplier tickSource;
+
+    private MappedByteBuffer segment;
+    private int segmentIndex = -1;
+    private int position;
+    private long recordCount = 0;
+
+    public RobotEventJournal(Path directory, LongSupplier tickSource) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, tickSource);
+    }
+
+    /**
+     * Crea un diario nuevo en el directorio, que no debe contener ya otro.
+     * @param segmentBytes tamaño de cada segmento (se redondea a registros completos)
+     */
+    public RobotEventJournal(Path directory, long segmentBytes, LongSupplier tickSource) throws IOException {
+        if (segmentBytes < HEADER_BYTES + RECORD_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes fuera de rango: " + segmentBytes);
+        }
+        Files.createDirectories(directory);
+        if (!segments(directory).isEmpty()) {
+            throw new FileAlreadyExistsException(directory.toString(), null, "ya contiene un diario");
+        }
+        this.directory = directory;
+        this.segmentBytes = HEADER_BYTES + (segmentBytes - HEADER_BYTES) / RECORD_BYTES * RECORD_BYTES;
+        this.tickSource = tickSource;
+        roll();
+    }
+
+    @Override
+    public void onRobotEvent(RobotEvent event) {
+        if (segment == null) return; // cerrado
+        if (position == segmentBytes) {
+            try {
+                roll();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        MappedByteBuffer s = segment;
+        int p = position;
+        s.putLong(p, tickSource.getAsLong());
+        s.putInt(p + 12, event.getX());
+        s.putInt(p + 16, event.getY());
+        s.putInt(p + 20, event.getValue());
+        s.putInt(p + 24, event.getStateId());
+        // El tipo se escribe el último: un registro a medias se ve como final
+        s.putInt(p + 8, event.getType().ordinal() + 1);
+        position = p + RECORD_BYTES;
+        recordCount++;
+    }
+
+    private void roll() throws IOException {
+        // Sin force: el sistema vuelca las páginas del segmento anterior por su cuenta
+        segmentIndex++;
+        Path file = directory.resolve(segmentName(segmentIndex));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // La proyección sigue siendo válida tras cerrar el canal
+            segment = map(channel, FileChannel.MapMode.READ_WRITE, segmentBytes);
+        }
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+        segment.putInt(8, RECORD_BYTES);
+        segment.putInt(12, segmentIndex);
+        position = HEADER_BYTES;
+    }
+
+    /**
+     * Registros escritos desde que se creó el diario.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Fuerza la escritura en disco del segmento actual.
+     */
+    public void flush() {
+        if (segment != null) segment.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        segment = null;
+    }
+
+    static String segmentName(int index) {
+        return String.format("events-%06d.journal", index);
+    }
+
+    /**
+     * Segmentos del diario en orden.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return files;
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(p -> p.getFileName().toString().matches("events-\\d{6}\\.journal"))
+                .sorted()
+                .forEach(files::add);
+        }
+        return files;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Lector secuencial de un diario: {@link #next()} avanza al siguiente
+     * registro y los getters dan sus campos, sin reservar memoria por
+     * registro. {@link #seek(long)} salta al primer registro de un tick
+     * (búsqueda binaria, suponiendo ticks no decrecientes como los del motor).
+     */
+    public static final class Reader implements AutoCloseable {
+        private final List<Path> files;
+        private MappedByteBuffer segment;
+        private int segmentIndex = -1;
+        private int records;    // registros escritos en el segmento actual
+        private int record = -1; // registro actual dentro del segmento
+
+        public Reader(Path directory) throws IOException {
+            this.files = segments(directory);
+        }
+
+        /**
+         * Avanza al siguiente registro.
+         * @return false si no quedan más
+         */
+        public boolean next() throws IOException {
+            while (segment == null || record + 1 >= records) {
+                if (segmentIndex + 1 >= files.size()) return false;
+                open(segmentIndex + 1);
+            }
+            record++;
+            return true;
+        }
+
+        /**
+         * Coloca el lector de modo que el siguiente {@link #next()} devuelva
+         * el primer registro con tick mayor o igual que el indicado.
+         */
+        public void seek(long tick) throws IOException {
+            if (files.isEmpty()) return;
+            // Último segmento cuyo primer registro es anterior al tick buscado (o el primero)
+            int lo = 0, hi = files.size() - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                open(mid);
+                if (records > 0 && tickAt(0) < tick) lo = mid; else hi = mid - 1;
+            }
+            open(lo);
+            lo = 0;
+            hi = records;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (tickAt(mid) < tick) lo = mid + 1; else hi = mid;
+            }
+            record = lo - 1;
+        }
+
+        /**
+         * Recorre los registros con tick en [fromTick, toTick), rellenando
+         * siempre el mismo evento (el consumidor no debe guardarlo).
+         */
+        public void forEach(long fromTick, long toTick, Consumer<RobotEvent> action) throws IOException {
+            RobotEvent event = new RobotEvent();
+            seek(fromTick);
+            while (next() && getTick() < toTick) {
+                action.accept(read(event));
+            }
+        }
+
+        /**
+         * Copia el registro actual al evento indicado (sin objeto asociado).
+         * El diario no guarda el instante del evento, solo su tick
+         * ({@link #getTick()}), así que getNanoTime del evento queda a 0.
+         */
+        public RobotEvent read(RobotEvent target) throws IOException {
+            return target.set(getType(), getX(), getY(), getValue(), getStateId(), null, 0);
+        }
+
+        public long getTick() { return tickAt(record); }
+
+        public RobotEvent.Type getType() throws IOException {
+            int type = segment.getInt(offset(record) + 8);
+            if (type < 1 || type > TYPES.length) {
+                throw new IOException("Tipo de evento no válido (" + type + ") en " + files.get(segmentIndex));
+            }
+            return TYPES[type - 1];
+        }
+
+        public int getX() { return segment.getInt(offset(record) + 12); }
+        public int getY() { return segment.getInt(offset(record) + 16); }
+        public int getValue() { return segment.getInt(offset(record) + 20); }
+        public int getStateId() { return segment.getInt(offset(record) + 24); }
+
+        private long tickAt(int index) {
+            return segment.getLong(offset(index));
+        }
+
+        private static int offset(int index) {
+            return HEADER_BYTES + index * RECORD_BYTES;
+        }
+
+        private void open(int index) throws IOException {
+            if (index == segmentIndex) {
+                record = -1;
+                return;
+            }
+            Path file = files.get(index);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_BYTES) throw new IOException("Segmento de diario truncado: " + file);
+                segment = map(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+            }
+            if (segment.getInt(0) != MAGIC) throw new IOException("No es un segmento de diario: " + file);
+            if (segment.getInt(4) != VERSION || segment.getInt(8) != RECORD_BYTES) {
+                throw new IOException("Versión de diario no soportada: " + file);
+            }
+            segmentIndex = index;
+            record = -1;
+            // Los registros escritos son un prefijo: el primero con tipo 0 marca el final
+            int capacity = (segment.capacity() - HEADER_BYTES) / RECORD_BYTES;
+            int lo = 0, hi = capacity;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (segment.getInt(offset(mid) + 8) != 0) lo = mid + 1; else hi = mid;
+            }
+            records = lo;
+        }
+
+        @Override
+        public void close() {
+            segment = null;
+        }
+    }
+}
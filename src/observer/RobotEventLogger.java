@@ -1,54 +1,121 @@
 package observer;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Observador que registra todos los eventos del robot en un log.
+ * Observador que registra los eventos del robot en un log.
+ *
+ * El log es un buffer circular de capacidad fija: guarda los últimos
+ * eventos (los más antiguos se sobrescriben) en huecos reservados una sola
+ * vez, así que una simulación larga usa memoria constante. Los contadores
+ * por tipo se actualizan al registrar y cuentan todos los eventos vistos,
+ * no solo los que siguen en el buffer.
  */
 public class RobotEventLogger implements RobotObserver {
-    private final List<RobotEvent> eventLog = new ArrayList<>();
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final RobotEvent.Type[] TYPES = RobotEvent.Type.values();
+
+    private final RobotEvent[] ring;
+    private final long[] countByType = new long[TYPES.length];
     private final boolean printToConsole;
+    // Eventos registrados desde el último clearLog; el siguiente va en total % capacidad
+    private long total = 0;
 
     public RobotEventLogger(boolean printToConsole) {
+        this(printToConsole, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity número de eventos más recientes que se conservan
+     */
+    public RobotEventLogger(boolean printToConsole, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity debe ser >= 1");
         this.printToConsole = printToConsole;
+        this.ring = new RobotEvent[capacity];
     }
 
     @Override
     public void onRobotEvent(RobotEvent event) {
-        eventLog.add(event);
+        // El robot reutiliza el evento: se copia a un hueco propio
+        int slot = (int) (total % ring.length);
+        if (ring[slot] == null) ring[slot] = new RobotEvent();
+        ring[slot].copyFrom(event);
+        total++;
+        countByType[event.getType().ordinal()]++;
         if (printToConsole) {
             System.out.println("[LOG] " + event);
         }
     }
 
+    /**
+     * Vista (sin copia) de los eventos conservados, del más antiguo al más
+     * reciente. Es de solo lectura y refleja los eventos que se registren
+     * después: si hay que guardar alguno, usar {@link RobotEvent#copy()}.
+     */
     public List<RobotEvent> getEventLog() {
-        return new ArrayList<>(eventLog);
+        return getRecentEvents(ring.length);
+    }
+
+    /**
+     * Vista (sin copia) de los últimos n eventos conservados como mucho,
+     * del más antiguo al más reciente. La ventana es fija: se calcula al
+     * llamar y al registrar más eventos sus elementos pasan a ser otros.
+     */
+    public List<RobotEvent> getRecentEvents(int n) {
+        int size = Math.min(Math.max(0, n), getRetainedCount());
+        long first = total - size;
+        return new AbstractList<RobotEvent>() {
+            @Override
+            public RobotEvent get(int index) {
+                if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+                return ring[(int) ((first + index) % ring.length)];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     public void clearLog() {
-        eventLog.clear();
+        total = 0;
+        Arrays.fill(countByType, 0);
+    }
+
+    public int getCapacity() {
+        return ring.length;
     }
 
-    public int getEventCount() {
-        return eventLog.size();
+    /**
+     * Eventos que siguen en el buffer (como mucho la capacidad).
+     */
+    public int getRetainedCount() {
+        return (int) Math.min(total, ring.length);
     }
 
-    public int getEventCountByType(RobotEvent.Type type) {
-        return (int) eventLog.stream()
-                .filter(e -> e.getType() == type)
-                .count();
+    /**
+     * Eventos registrados desde el principio (o desde clearLog), conservados o no.
+     */
+    public long getEventCount() {
+        return total;
+    }
+
+    public long getEventCountByType(RobotEvent.Type type) {
+        return countByType[type.ordinal()];
     }
 
     public void printSummary() {
         System.out.println("=== Event Log Summary ===");
-        System.out.println("Total events: " + eventLog.size());
-        for (RobotEvent.Type type : RobotEvent.Type.values()) {
-            int count = getEventCountByType(type);
+        System.out.println("Total events: " + total);
+        for (RobotEvent.Type type : TYPES) {
+            long count = countByType[type.ordinal()];
             if (count > 0) {
                 System.out.println("  " + type + ": " + count);
             }
         }
     }
 }
-
@@ -1,9 +1,8 @@
 package observer;
 
-import model.Position;
-
 /**
  * Observador que recopila estadísticas sobre el comportamiento del robot.
+ * Solo lee los campos primitivos del evento, así que no reserva memoria.
  */
 public class RobotStatisticsObserver implements RobotObserver {
     private int stateChanges = 0;
@@ -14,7 +13,9 @@ public class RobotStatisticsObserver implements RobotObserver {
     private int cleaningCompletions = 0;
     private int chargerReturns = 0;
     private long totalDistance = 0;
-    private Position lastPosition = null;
+    // Última posición conocida (RobotEvent.NONE si aún no hay)
+    private int lastX = RobotEvent.NONE;
+    private int lastY = RobotEvent.NONE;
 
     @Override
     public void onRobotEvent(RobotEvent event) {
@@ -24,12 +25,12 @@ public class RobotStatisticsObserver implements RobotObserver {
                 break;
             case POSITION_CHANGED:
                 positionChanges++;
-                if (event.getData() instanceof Position) {
-                    Position newPos = (Position) event.getData();
-                    if (lastPosition != null) {
-                        totalDistance += lastPosition.manhattanDistance(newPos);
+                if (event.hasPosition()) {
+                    if (lastX != RobotEvent.NONE) {
+                        totalDistance += Math.abs(event.getX() - lastX) + Math.abs(event.getY() - lastY);
                     }
-                    lastPosition = newPos;
+                    lastX = event.getX();
+                    lastY = event.getY();
                 }
                 break;
             case PATH_CALCULATED:
@@ -81,7 +82,8 @@ public class RobotStatisticsObserver implements RobotObserver {
         cleaningCompletions = 0;
         chargerReturns = 0;
         totalDistance = 0;
-        lastPosition = null;
+        lastX = RobotEvent.NONE;
+        lastY = RobotEvent.NONE;
     }
 }
 
@@ -4,62 +4,111 @@ import model.Position;
 import model.Room;
 
 import java.util.*;
+import java.util.function.LongConsumer;
 
 /**
- * Implementacion simple de A* con heuristica Manhattan.
+ * Implementacion de A* con heuristica Manhattan.
  * Devuelve lista de posiciones desde start(excluido) hasta goal(incluido).
+ * Trabaja con indices y*width+x, arrays primitivos reutilizables (ver
+ * {@link SearchWorkspace}) y un monticulo de longs, sin crear objetos
+ * durante la busqueda.
  */
 public class AStar {
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
     public static List<Position> findPath(Position start, Position goal, Room room) {
         if (start.equals(goal)) return Collections.emptyList();
-        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingInt(n -> n.f));
-        Map<Position, Integer> gScore = new HashMap<>();
-        Map<Position, Position> cameFrom = new HashMap<>();
+        SearchWorkspace ws = SearchWorkspace.current();
+        int goalCell = search(ws, start, goal, room);
+        if (goalCell < 0) return null; // no path
+        return toPositions(ws, room, ws.index(start.x, start.y), goalCell);
+    }
 
-        Node startNode = new Node(start, 0, heuristic(start, goal));
-        open.add(startNode);
-        gScore.put(start, 0);
+    /**
+     * Variante sin asignaciones: escribe en out los indices (y*width+x) de la ruta.
+     * @return longitud de la ruta (puede superar out.length; en ese caso solo se
+     *         escribe el prefijo que cabe) o -1 si no hay ruta
+     */
+    public static int findPath(Position start, Position goal, Room room, int[] out) {
+        if (start.equals(goal)) return 0;
+        SearchWorkspace ws = SearchWorkspace.current();
+        int goalCell = search(ws, start, goal, room);
+        if (goalCell < 0) return -1;
+        return ws.writePath(ws.index(start.x, start.y), goalCell, out);
+    }
 
-        while (!open.isEmpty()) {
-            Node node = open.poll();
-            Position current = node.pos;
-            if (current.equals(goal)) {
-                return reconstructPath(cameFrom, current);
-            }
-            for (Position neighbor : room.getNeighbors(current)) {
-                int tentativeG = gScore.getOrDefault(current, Integer.MAX_VALUE) + 1 + (room.isCleaned(neighbor) ? 1 : 0);
-                if (tentativeG < gScore.getOrDefault(neighbor, Integer.MAX_VALUE)) {
-                    cameFrom.put(neighbor, current);
-                    gScore.put(neighbor, tentativeG);
-                    int f = tentativeG + heuristic(neighbor, goal);
-                    open.add(new Node(neighbor, tentativeG, f));
+    /**
+     * Como {@link #findPath(Position, Position, Room, int[])}, escribiendo
+     * posiciones empaquetadas ({@link Position#pack}) en lugar de índices.
+     */
+    public static int findPath(Position start, Position goal, Room room, long[] out) {
+        if (start.equals(goal)) return 0;
+        SearchWorkspace ws = SearchWorkspace.current();
+        int goalCell = search(ws, start, goal, room);
+        if (goalCell < 0) return -1;
+        return ws.writePath(ws.index(start.x, start.y), goalCell, out);
+    }
+
+    /**
+     * Entrega el índice (y*width+x) de cada celda alcanzada por la última
+     * búsqueda de este hilo; hay que llamarlo justo después de findPath. Tras
+     * una búsqueda sin ruta son exactamente las celdas alcanzables desde el origen.
+     */
+    public static void forEachReached(LongConsumer action) {
+        SearchWorkspace.current().forEachVisited(action);
+    }
+
+    /**
+     * Ejecuta la busqueda y deja el arbol en el workspace.
+     * @return indice de la meta o -1 si no es alcanzable
+     */
+    static int search(SearchWorkspace ws, Position start, Position goal, Room room) {
+        ws.begin(room);
+        if (!ws.inBounds(start.x, start.y) || !ws.inBounds(goal.x, goal.y)) return -1;
+        int startCell = ws.index(start.x, start.y);
+        int goalCell = ws.index(goal.x, goal.y);
+
+        ws.set(startCell, 0, startCell);
+        ws.open.push(PrimitiveHeap.key(heuristic(start.x, start.y, goal.x, goal.y), 0), startCell);
+
+        while (!ws.open.isEmpty()) {
+            int f = PrimitiveHeap.f(ws.open.topKey());
+            int current = ws.open.pop();
+            if (current == goalCell) return goalCell;
+
+            int cx = ws.x(current);
+            int cy = ws.y(current);
+            int g = ws.g(current);
+            // Entrada obsoleta: ya se encontro un camino mejor a esta celda
+            if (f > g + heuristic(cx, cy, goal.x, goal.y)) continue;
+
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!room.isPassable(nx, ny)) continue;
+                int neighbor = ws.index(nx, ny);
+                int tentativeG = g + 1 + (room.isCleaned(nx, ny) ? 1 : 0);
+                if (tentativeG < ws.g(neighbor)) {
+                    ws.set(neighbor, tentativeG, current);
+                    ws.open.push(PrimitiveHeap.key(tentativeG + heuristic(nx, ny, goal.x, goal.y), tentativeG), neighbor);
                 }
             }
         }
-        return null; // no path
+        return -1;
     }
 
-    private static List<Position> reconstructPath(Map<Position, Position> cameFrom, Position current) {
-        List<Position> total = new ArrayList<>();
-        Position cur = current;
-        while (cameFrom.containsKey(cur)) {
-            total.add(cur);
-            cur = cameFrom.get(cur);
+    static List<Position> toPositions(SearchWorkspace ws, Room room, int startCell, int goalCell) {
+        int len = ws.pathLength(startCell, goalCell);
+        Position[] total = new Position[len];
+        int i = len - 1;
+        for (int cur = goalCell; cur != startCell; cur = ws.parent(cur)) {
+            total[i--] = room.position(ws.x(cur), ws.y(cur));
         }
-        Collections.reverse(total);
-        return total;
+        return new ArrayList<>(Arrays.asList(total));
     }
 
-    private static int heuristic(Position a, Position b) {
-        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
-    }
-
-    private static class Node {
-        Position pos;
-        int g;
-        int f;
-
-        Node(Position pos, int g, int f) { this.pos = pos; this.g = g; this.f = f; }
+    private static int heuristic(int ax, int ay, int bx, int by) {
+        return Math.abs(ax - bx) + Math.abs(ay - by);
     }
 }
-
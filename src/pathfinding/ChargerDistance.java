@@ -0,0 +1,37 @@
+package pathfinding;
+
+import model.Position;
+import model.Room;
+
+import java.util.List;
+
+/**
+ * Distancia en pasos desde cualquier celda hasta el cargador de una habitación,
+ * tal y como la consulta el sensor de batería en cada tick.
+ */
+public interface ChargerDistance {
+    int UNREACHABLE = Integer.MAX_VALUE;
+
+    Room getRoom();
+
+    /**
+     * Fija el cargador hacia el que se miden las distancias.
+     */
+    void setRoot(Position charger);
+
+    /**
+     * Distancia en pasos desde (x,y) hasta el cargador, o UNREACHABLE.
+     */
+    int distanceFrom(int x, int y);
+
+    /**
+     * Ruta hasta el cargador desde start(excluido) hasta el cargador(incluido),
+     * o null si no es alcanzable.
+     */
+    List<Position> pathFrom(Position start);
+
+    /**
+     * Deja de escuchar los cambios de la habitación.
+     */
+    void detach();
+}
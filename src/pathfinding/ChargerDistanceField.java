@@ -0,0 +1,321 @@
+package pathfinding;
+
+import model.Position;
+import model.Room;
+import model.RoomListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Campo de distancias (BFS) con raíz en el cargador, guardado en un int[].
+ * La distancia desde cualquier celda al cargador se consulta en O(1).
+ * Escucha los cambios de obstáculos de la habitación y los aplica de forma
+ * incremental en la siguiente consulta: al bloquear una celda solo se
+ * invalidan y recalculan las celdas que dependían de ella; al liberarla solo
+ * se propagan las mejoras.
+ */
+public class ChargerDistanceField implements ChargerDistance, RoomListener {
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    private final Room room;
+    private final int width;
+    private final int height;
+    private final int[] dist;
+
+    // Celdas pendientes de procesar (deduplicadas por sello)
+    private final int[] pendingStamp;
+    private int[] pending = new int[64];
+    private int pendingSize = 0;
+    private int pendingGeneration = 1;
+
+    // Memoria de trabajo de las actualizaciones
+    private final int[] mark;
+    private int markGeneration = 0;
+    private int[] queue = new int[256];
+    private int[] affected = new int[64];
+    private final PrimitiveHeap heap = new PrimitiveHeap();
+
+    private Position root = null;
+
+    public ChargerDistanceField(Room room) {
+        this.room = room;
+        this.width = room.getWidth();
+        this.height = room.getHeight();
+        int cells = width * height;
+        this.dist = new int[cells];
+        this.pendingStamp = new int[cells];
+        this.mark = new int[cells];
+        Arrays.fill(dist, UNREACHABLE);
+        room.addListener(this);
+    }
+
+    /**
+     * Indica si la habitación cabe en un campo denso (un int por celda);
+     * si no, usar {@link ChargerRoute}.
+     */
+    public static boolean supports(Room room) {
+        return (long) room.getWidth() * room.getHeight() <= SearchWorkspace.DENSE_LIMIT;
+    }
+
+    @Override
+    public Room getRoom() {
+        return room;
+    }
+
+    @Override
+    public void detach() {
+        room.removeListener(this);
+    }
+
+    /**
+     * Fija la raíz del campo. Solo se reconstruye si el cargador cambió de sitio.
+     */
+    @Override
+    public void setRoot(Position charger) {
+        if (charger.equals(root)) return;
+        root = charger;
+        rebuild();
+    }
+
+    public Position getRoot() {
+        return root;
+    }
+
+    /**
+     * Distancia en pasos desde (x,y) hasta el cargador, o UNREACHABLE.
+     * Si la celda está ocupada (p. ej. un gato se ha subido encima del robot)
+     * se cuenta la salida hacia el mejor vecino, igual que haría A*.
+     */
+    @Override
+    public int distanceFrom(int x, int y) {
+        applyPending();
+        if (root == null || !room.inBounds(x, y)) return UNREACHABLE;
+        int cell = y * width + x;
+        if (room.isPassable(x, y) || dist[cell] == 0) return dist[cell];
+        int best = bestNeighborDistance(x, y);
+        return best == UNREACHABLE ? UNREACHABLE : best + 1;
+    }
+
+    /**
+     * Ruta más corta (en pasos) hasta el cargador descendiendo por el campo,
+     * desde start(excluido) hasta el cargador(incluido), o null si no es alcanzable.
+     */
+    @Override
+    public List<Position> pathFrom(Position start) {
+        int remaining = distanceFrom(start.x, start.y);
+        if (remaining == UNREACHABLE) return null;
+        List<Position> path = new ArrayList<>(remaining);
+        int x = start.x;
+        int y = start.y;
+        while (remaining > 0) {
+            int next = -1;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (room.inBounds(nx, ny) && dist[ny * width + nx] == remaining - 1) {
+                    next = d;
+                    break;
+                }
+            }
+            if (next < 0) return null;
+            x += DX[next];
+            y += DY[next];
+            remaining--;
+            path.add(room.position(x, y));
+        }
+        return path;
+    }
+
+    @Override
+    public void onObstacleChanged(int x, int y) {
+        int cell = y * width + x;
+        if (pendingStamp[cell] == pendingGeneration) return;
+        pendingStamp[cell] = pendingGeneration;
+        if (pendingSize == pending.length) pending = Arrays.copyOf(pending, pendingSize * 2);
+        pending[pendingSize++] = cell;
+    }
+
+    private void rebuild() {
+        Arrays.fill(dist, UNREACHABLE);
+        discardPending();
+        if (root == null || !room.inBounds(root)) return;
+        int rootCell = root.y * width + root.x;
+        dist[rootCell] = 0;
+        int head = 0;
+        int tail = 0;
+        queue = ensure(queue, 1);
+        queue[tail++] = rootCell;
+        while (head < tail) {
+            int cur = queue[head++];
+            int cx = cur % width;
+            int cy = cur / width;
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!room.isPassable(nx, ny)) continue;
+                int n = ny * width + nx;
+                if (dist[n] != UNREACHABLE) continue;
+                dist[n] = dist[cur] + 1;
+                queue = ensure(queue, tail + 1);
+                queue[tail++] = n;
+            }
+        }
+    }
+
+    private void applyPending() {
+        if (pendingSize == 0 || root == null) {
+            discardPending();
+            return;
+        }
+        int count = pendingSize;
+        int[] cells = Arrays.copyOf(pending, count);
+        discardPending();
+        // Primero las celdas bloqueadas y después las liberadas, para no
+        // propagar mejoras a través de distancias que van a invalidarse
+        for (int i = 0; i < count; i++) {
+            int c = cells[i];
+            if (!isPassableCell(c) && dist[c] != UNREACHABLE) onBlocked(c);
+        }
+        for (int i = 0; i < count; i++) {
+            int c = cells[i];
+            if (isPassableCell(c)) onFreed(c);
+        }
+    }
+
+    private void discardPending() {
+        pendingSize = 0;
+        if (++pendingGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(pendingStamp, 0);
+            pendingGeneration = 1;
+        }
+    }
+
+    /**
+     * Invalida las celdas cuyo único camino corto pasaba por la celda bloqueada
+     * y las recalcula desde el borde de la zona afectada.
+     */
+    private void onBlocked(int blocked) {
+        if (++markGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            markGeneration = 1;
+        }
+        // Recorrido por niveles: al sacar un candidato todos los del nivel
+        // anterior ya están decididos, así que su soporte se comprueba bien
+        int head = 0;
+        int tail = 0;
+        queue = ensure(queue, 1);
+        queue[tail++] = blocked;
+        mark[blocked] = markGeneration;
+        int affectedCount = 0;
+        while (head < tail) {
+            int cur = queue[head++];
+            if (cur != blocked && hasSupport(cur)) {
+                mark[cur] = 0;
+                continue;
+            }
+            affected = ensure(affected, affectedCount + 1);
+            affected[affectedCount++] = cur;
+            int cx = cur % width;
+            int cy = cur / width;
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!room.inBounds(nx, ny)) continue;
+                int n = ny * width + nx;
+                if (mark[n] == markGeneration || dist[n] != dist[cur] + 1) continue;
+                mark[n] = markGeneration;
+                queue = ensure(queue, tail + 1);
+                queue[tail++] = n;
+            }
+        }
+
+        for (int i = 0; i < affectedCount; i++) dist[affected[i]] = UNREACHABLE;
+
+        heap.clear();
+        for (int i = 0; i < affectedCount; i++) {
+            int c = affected[i];
+            if (!isPassableCell(c)) continue;
+            int best = bestNeighborDistance(c % width, c / width);
+            if (best != UNREACHABLE) {
+                dist[c] = best + 1;
+                heap.push(dist[c], c);
+            }
+        }
+        propagate();
+    }
+
+    private void onFreed(int cell) {
+        int cx = cell % width;
+        int cy = cell / width;
+        int candidate = 0;
+        if (root.x != cx || root.y != cy) {
+            int best = bestNeighborDistance(cx, cy);
+            if (best == UNREACHABLE) return;
+            candidate = best + 1;
+        }
+        if (candidate >= dist[cell]) return;
+        dist[cell] = candidate;
+        heap.clear();
+        heap.push(candidate, cell);
+        propagate();
+    }
+
+    /** Dijkstra con pesos unitarios a partir de las celdas del montículo. */
+    private void propagate() {
+        while (!heap.isEmpty()) {
+            int d = (int) heap.topKey();
+            int cur = heap.pop();
+            if (d > dist[cur]) continue;
+            int cx = cur % width;
+            int cy = cur / width;
+            for (int k = 0; k < 4; k++) {
+                int nx = cx + DX[k];
+                int ny = cy + DY[k];
+                if (!room.isPassable(nx, ny)) continue;
+                int n = ny * width + nx;
+                if (d + 1 < dist[n]) {
+                    dist[n] = d + 1;
+                    heap.push(d + 1, n);
+                }
+            }
+        }
+    }
+
+    /** Indica si algún vecino no afectado sigue dando la distancia actual de la celda. */
+    private boolean hasSupport(int cell) {
+        int target = dist[cell] - 1;
+        int cx = cell % width;
+        int cy = cell / width;
+        for (int d = 0; d < 4; d++) {
+            int nx = cx + DX[d];
+            int ny = cy + DY[d];
+            if (!room.isPassable(nx, ny)) continue;
+            int n = ny * width + nx;
+            if (mark[n] != markGeneration && dist[n] == target) return true;
+        }
+        return false;
+    }
+
+    private int bestNeighborDistance(int x, int y) {
+        int best = UNREACHABLE;
+        for (int d = 0; d < 4; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (!room.isPassable(nx, ny)) continue;
+            best = Math.min(best, dist[ny * width + nx]);
+        }
+        return best;
+    }
+
+    private boolean isPassableCell(int cell) {
+        return room.isPassable(cell % width, cell / width);
+    }
+
+    private static int[] ensure(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+}
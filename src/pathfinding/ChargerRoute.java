@@ -0,0 +1,179 @@
+package pathfinding;
+
+import model.Position;
+import model.Room;
+import model.RoomListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distancia al cargador para habitaciones demasiado grandes para un
+ * {@link ChargerDistanceField} denso. Guarda la última ruta calculada con
+ * {@link AStar} en arrays primitivos (celdas empaquetadas y una tabla de
+ * direccionamiento abierto celda -> pasos restantes, como la de ObstacleIndex,
+ * para no crear objetos en cada consulta): sobre ella la distancia es exacta
+ * y, mientras el robot se aleja paso a paso, se devuelve una cota superior
+ * (distancia conocida + pasos dados). La ruta se recalcula cada
+ * {@link #REFRESH_STEPS} pasos, al saltar a una celda no contigua o cuando
+ * se bloquea una de sus celdas.
+ */
+public class ChargerRoute implements ChargerDistance, RoomListener {
+    private static final int REFRESH_STEPS = 32;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final Room room;
+    private Position root = null;
+
+    // Celdas de la ruta (origen excluido, cargador incluido); routeLength < 0 si no hay ruta
+    private long[] route = new long[64];
+    private int routeLength = -1;
+
+    // Pasos restantes hasta el cargador de cada celda de la ruta y del origen
+    private long[] keys = new long[16];
+    private int[] steps = new int[16];
+    private int size = 0;
+
+    // Última consulta respondida y pasos desde el último cálculo exacto
+    private boolean hasLast = false;
+    private int lastX;
+    private int lastY;
+    private int lastDistance;
+    private int stepsSinceExact;
+
+    public ChargerRoute(Room room) {
+        this.room = room;
+        Arrays.fill(keys, EMPTY);
+        room.addListener(this);
+    }
+
+    @Override
+    public Room getRoom() {
+        return room;
+    }
+
+    @Override
+    public void detach() {
+        room.removeListener(this);
+    }
+
+    @Override
+    public void setRoot(Position charger) {
+        if (charger.equals(root)) return;
+        root = charger;
+        invalidate();
+    }
+
+    @Override
+    public int distanceFrom(int x, int y) {
+        if (root == null || !room.inBounds(x, y)) return UNREACHABLE;
+        if (x == root.x && y == root.y) return 0;
+
+        int known = stepsAt(Position.pack(x, y));
+        if (known >= 0) return remember(x, y, known, 0);
+
+        if (hasLast && stepsSinceExact < REFRESH_STEPS &&
+            Math.abs(x - lastX) + Math.abs(y - lastY) == 1) {
+            int bound = lastDistance == UNREACHABLE ? UNREACHABLE : lastDistance + 1;
+            return remember(x, y, bound, stepsSinceExact + 1);
+        }
+        return remember(x, y, replan(x, y), 0);
+    }
+
+    @Override
+    public List<Position> pathFrom(Position start) {
+        if (root == null) return null;
+        if (start.equals(root)) return new ArrayList<>();
+        int known = stepsAt(start.pack());
+        if (known < 0) {
+            if (replan(start.x, start.y) == UNREACHABLE) return null;
+            known = routeLength;
+        }
+        List<Position> path = new ArrayList<>(known);
+        for (int i = routeLength - known; i < routeLength; i++) {
+            path.add(room.position(Position.unpackX(route[i]), Position.unpackY(route[i])));
+        }
+        return path;
+    }
+
+    @Override
+    public void onObstacleChanged(int x, int y) {
+        // Liberar celdas solo puede acortar la ruta; bloquear una de ella la invalida
+        if (stepsAt(Position.pack(x, y)) >= 0 && !room.isPassable(x, y)) invalidate();
+    }
+
+    private int replan(int x, int y) {
+        Position start = room.position(x, y);
+        int len = AStar.findPath(start, root, room, route);
+        if (len > route.length) {
+            // No cabía: se repite la búsqueda con sitio para toda la ruta
+            route = new long[Math.max(len, route.length * 2)];
+            len = AStar.findPath(start, root, room, route);
+        }
+        routeLength = len;
+        clearSteps(len < 0 ? 0 : len + 1);
+        if (len < 0) return UNREACHABLE;
+        putSteps(Position.pack(x, y), len);
+        for (int i = 0; i < len; i++) putSteps(route[i], len - 1 - i);
+        return len;
+    }
+
+    /**
+     * Pasos restantes desde la celda empaquetada, o -1 si no está en la ruta.
+     */
+    private int stepsAt(long key) {
+        if (size == 0) return -1;
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return steps[i];
+            if (k == EMPTY) return -1;
+        }
+    }
+
+    private void putSteps(long key, int value) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+        if (keys[i] == EMPTY) size++;
+        keys[i] = key;
+        steps[i] = value;
+    }
+
+    /**
+     * Vacía la tabla dejándola con sitio para el número de celdas indicado
+     * (ocupación máxima 1/2); si la actual es de ese tamaño se reutiliza.
+     */
+    private void clearSteps(int cells) {
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, cells * 2 - 1)) << 1);
+        if (keys.length != capacity) {
+            keys = new long[capacity];
+            steps = new int[capacity];
+        } else if (size == 0) {
+            return;
+        }
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int remember(int x, int y, int distance, int steps) {
+        hasLast = true;
+        lastX = x;
+        lastY = y;
+        lastDistance = distance;
+        stepsSinceExact = steps;
+        return distance;
+    }
+
+    private void invalidate() {
+        routeLength = -1;
+        clearSteps(0);
+        hasLast = false;
+    }
+}
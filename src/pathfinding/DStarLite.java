@@ -0,0 +1,324 @@
+package pathfinding;
+
+import model.Position;
+import model.Room;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Planificador incremental D* Lite hacia una meta fija.
+ * Busca desde la meta hacia el robot y conserva el árbol de búsqueda entre
+ * llamadas: cuando un gato cambia de celda solo se reparan los vértices
+ * afectados en lugar de repetir un A* completo.
+ *
+ * El coste de entrar en una celda (1, o 2 si está limpia) se toma la
+ * primera vez que la búsqueda la visita y solo se refresca para las celdas
+ * notificadas con {@link #notifyCellChanged} o leídas del diario de cambios
+ * de la habitación por {@link #syncRoomChanges()}.
+ */
+public class DStarLite {
+    private static final int INF = Integer.MAX_VALUE / 4;
+    private static final byte UNKNOWN = 0;
+    private static final byte BLOCKED = 3;
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    private final Room room;
+    private final int width;
+    private final int height;
+
+    private final int[] g;
+    private final int[] rhs;
+    private final int[] heapIndex;
+    private final byte[] cost;
+    private final int[] stamp;
+    private int generation = 0;
+
+    private long[] heapKeys = new long[256];
+    private int[] heapCells = new int[256];
+    private int heapSize = 0;
+
+    private Position goal;
+    private int goalCell;
+    private int startX;
+    private int startY;
+    private int lastX;
+    private int lastY;
+    private int km;
+    private long syncedVersion;
+
+    public DStarLite(Room room) {
+        this.room = room;
+        this.width = room.getWidth();
+        this.height = room.getHeight();
+        int cells = width * height;
+        this.g = new int[cells];
+        this.rhs = new int[cells];
+        this.heapIndex = new int[cells];
+        this.cost = new byte[cells];
+        this.stamp = new int[cells];
+    }
+
+    /**
+     * Indica si la habitación cabe en los arrays por celda del planificador.
+     */
+    public static boolean supports(Room room) {
+        return (long) room.getWidth() * room.getHeight() <= SearchWorkspace.DENSE_LIMIT;
+    }
+
+    /**
+     * Reinicia el planificador hacia una nueva meta partiendo de start.
+     * Reutiliza los arrays: las celdas de búsquedas anteriores se invalidan por generación.
+     */
+    public void reset(Position start, Position goal) {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        heapSize = 0;
+        km = 0;
+        this.goal = goal;
+        this.goalCell = goal.y * width + goal.x;
+        this.startX = this.lastX = start.x;
+        this.startY = this.lastY = start.y;
+        this.syncedVersion = room.getVersion();
+
+        touch(goalCell);
+        rhs[goalCell] = 0;
+        heapInsert(goalCell, key(goalCell));
+    }
+
+    public Position getGoal() {
+        return goal;
+    }
+
+    /**
+     * Informa de que el robot se ha desplazado (ajusta km sin invalidar el árbol).
+     */
+    public void updateStart(Position start) {
+        if (start.x == startX && start.y == startY) return;
+        startX = start.x;
+        startY = start.y;
+        km += Math.abs(lastX - startX) + Math.abs(lastY - startY);
+        lastX = startX;
+        lastY = startY;
+    }
+
+    /**
+     * Repara los vértices de las celdas cambiadas desde la última sincronización
+     * (gatos, limpieza, obstáculos) según el diario de la habitación. Si el
+     * diario ya no cubre ese intervalo se reinicia la búsqueda.
+     */
+    public void syncRoomChanges() {
+        long current = room.getVersion();
+        if (current == syncedVersion) return;
+        if (!room.changesSince(syncedVersion, p -> notifyCellChanged(Position.unpackX(p), Position.unpackY(p)))) {
+            reset(new Position(startX, startY), goal);
+            return;
+        }
+        syncedVersion = current;
+    }
+
+    /**
+     * Relee el coste de la celda y, si cambió, actualiza a sus predecesores.
+     */
+    public void notifyCellChanged(int x, int y) {
+        if (!room.inBounds(x, y)) return;
+        int cell = y * width + x;
+        if (stamp[cell] != generation || cost[cell] == UNKNOWN) return; // la búsqueda aún no la ha visto
+        byte updated = readCost(x, y);
+        if (updated == cost[cell]) return;
+        cost[cell] = updated;
+        for (int d = 0; d < 4; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (room.inBounds(nx, ny)) updateVertex(ny * width + nx);
+        }
+    }
+
+    /**
+     * Repara el árbol y devuelve la ruta desde la posición actual (excluida)
+     * hasta la meta (incluida), o null si no es alcanzable.
+     */
+    public List<Position> findPath() {
+        if (startX == goal.x && startY == goal.y) return new ArrayList<>();
+        int startCell = startY * width + startX;
+        touch(startCell);
+        computeShortestPath(startCell);
+        if (g[startCell] >= INF) return null;
+
+        List<Position> path = new ArrayList<>();
+        int cur = startCell;
+        int limit = width * height;
+        while (cur != goalCell) {
+            int next = -1;
+            int best = INF;
+            int cx = cur % width;
+            int cy = cur / width;
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!room.inBounds(nx, ny)) continue;
+                int n = ny * width + nx;
+                int total = edge(n) + gOf(n);
+                if (total < best) {
+                    best = total;
+                    next = n;
+                }
+            }
+            if (next < 0 || --limit < 0) return null;
+            path.add(room.position(next % width, next / width));
+            cur = next;
+        }
+        return path;
+    }
+
+    private void computeShortestPath(int startCell) {
+        while (heapSize > 0 && (heapKeys[0] < key(startCell) || rhs[startCell] != g[startCell])) {
+            long oldKey = heapKeys[0];
+            int u = heapCells[0];
+            long newKey = key(u);
+            if (oldKey < newKey) {
+                heapUpdate(u, newKey);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                heapRemove(u);
+                updateNeighbors(u);
+            } else {
+                g[u] = INF;
+                updateNeighbors(u);
+                updateVertex(u);
+            }
+        }
+    }
+
+    private void updateNeighbors(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        for (int d = 0; d < 4; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (room.inBounds(nx, ny)) updateVertex(ny * width + nx);
+        }
+    }
+
+    private void updateVertex(int u) {
+        touch(u);
+        if (u != goalCell) {
+            int x = u % width;
+            int y = u / width;
+            int best = INF;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (!room.inBounds(nx, ny)) continue;
+                int s = ny * width + nx;
+                int total = edge(s) + gOf(s);
+                if (total < best) best = total;
+            }
+            rhs[u] = best;
+        }
+        if (g[u] != rhs[u]) {
+            if (heapIndex[u] >= 0) heapUpdate(u, key(u)); else heapInsert(u, key(u));
+        } else if (heapIndex[u] >= 0) {
+            heapRemove(u);
+        }
+    }
+
+    /** Coste de entrar en la celda según la caché (INF si está bloqueada). */
+    private int edge(int cell) {
+        touch(cell);
+        if (cost[cell] == UNKNOWN) cost[cell] = readCost(cell % width, cell / width);
+        return cost[cell] == BLOCKED ? INF : cost[cell];
+    }
+
+    private byte readCost(int x, int y) {
+        if (!room.isPassable(x, y)) return BLOCKED;
+        return (byte) (room.isCleaned(x, y) ? 2 : 1);
+    }
+
+    private int gOf(int cell) {
+        return stamp[cell] == generation ? g[cell] : INF;
+    }
+
+    private void touch(int cell) {
+        if (stamp[cell] == generation) return;
+        stamp[cell] = generation;
+        g[cell] = INF;
+        rhs[cell] = INF;
+        heapIndex[cell] = -1;
+        cost[cell] = UNKNOWN;
+    }
+
+    private long key(int cell) {
+        int m = Math.min(gOf(cell), stamp[cell] == generation ? rhs[cell] : INF);
+        if (m >= INF) return Long.MAX_VALUE;
+        int h = Math.abs(cell % width - startX) + Math.abs(cell / width - startY);
+        return ((long) (m + h + km) << 32) | m;
+    }
+
+    // Montículo indexado (permite actualizar y borrar celdas concretas)
+
+    private void heapInsert(int cell, long key) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+        }
+        heapKeys[heapSize] = key;
+        heapCells[heapSize] = cell;
+        heapIndex[cell] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private void heapUpdate(int cell, long key) {
+        int i = heapIndex[cell];
+        long old = heapKeys[i];
+        heapKeys[i] = key;
+        if (key < old) siftUp(i); else siftDown(i);
+    }
+
+    private void heapRemove(int cell) {
+        int i = heapIndex[cell];
+        heapIndex[cell] = -1;
+        int last = --heapSize;
+        if (i == last) return;
+        heapKeys[i] = heapKeys[last];
+        heapCells[i] = heapCells[last];
+        heapIndex[heapCells[i]] = i;
+        siftUp(i);
+        siftDown(heapIndex[heapCells[i]]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKeys[parent] <= heapKeys[i]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) child++;
+            if (heapKeys[i] <= heapKeys[child]) break;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long k = heapKeys[a];
+        heapKeys[a] = heapKeys[b];
+        heapKeys[b] = k;
+        int c = heapCells[a];
+        heapCells[a] = heapCells[b];
+        heapCells[b] = c;
+        heapIndex[heapCells[a]] = a;
+        heapIndex[heapCells[b]] = b;
+    }
+}
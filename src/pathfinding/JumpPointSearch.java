@@ -0,0 +1,153 @@
+package pathfinding;
+
+import model.Position;
+import model.Room;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Jump Point Search para la rejilla 4-conexa de {@link Room#getNeighbors}.
+ * Solo es válido con coste uniforme: si la penalización por celda limpia
+ * hace que los costes difieran, delega en {@link AStar}.
+ * Devuelve lista de posiciones desde start(excluido) hasta goal(incluido).
+ * No es el planificador de retorno por defecto (RobotManager usa la ruta del
+ * campo de distancias del sensor de batería); se puede elegir con
+ * {@code robot.setReturnPlanner(JumpPointSearch::findPath)}.
+ */
+public class JumpPointSearch {
+    private static final int NONE = -1;
+
+    public static List<Position> findPath(Position start, Position goal, Room room) {
+        if (!room.hasUniformTraversalCost()) {
+            return AStar.findPath(start, goal, room);
+        }
+        if (start.equals(goal)) return Collections.emptyList();
+        SearchWorkspace ws = SearchWorkspace.current();
+        int goalCell = search(ws, start, goal, room);
+        if (goalCell < 0) return null;
+        return interpolate(ws, room, ws.index(start.x, start.y), goalCell);
+    }
+
+    private static int search(SearchWorkspace ws, Position start, Position goal, Room room) {
+        ws.begin(room);
+        if (!ws.inBounds(start.x, start.y) || !ws.inBounds(goal.x, goal.y)) return NONE;
+        int startCell = ws.index(start.x, start.y);
+        int goalCell = ws.index(goal.x, goal.y);
+
+        ws.set(startCell, 0, startCell);
+        ws.open.push(PrimitiveHeap.key(heuristic(start.x, start.y, goal), 0), startCell);
+
+        while (!ws.open.isEmpty()) {
+            int f = PrimitiveHeap.f(ws.open.topKey());
+            int current = ws.open.pop();
+            if (current == goalCell) return goalCell;
+
+            int cx = ws.x(current);
+            int cy = ws.y(current);
+            int g = ws.g(current);
+            if (f > g + heuristic(cx, cy, goal)) continue;
+
+            int parent = ws.parent(current);
+            int dx = Integer.signum(cx - ws.x(parent));
+            int dy = Integer.signum(cy - ws.y(parent));
+
+            if (dx == 0 && dy == 0) {
+                // Nodo inicial: se exploran las cuatro direcciones
+                expand(ws, room, goal, current, 1, 0);
+                expand(ws, room, goal, current, -1, 0);
+                expand(ws, room, goal, current, 0, 1);
+                expand(ws, room, goal, current, 0, -1);
+            } else if (dx != 0) {
+                expand(ws, room, goal, current, dx, 0);
+                expand(ws, room, goal, current, 0, 1);
+                expand(ws, room, goal, current, 0, -1);
+            } else {
+                expand(ws, room, goal, current, 0, dy);
+                expand(ws, room, goal, current, 1, 0);
+                expand(ws, room, goal, current, -1, 0);
+            }
+        }
+        return NONE;
+    }
+
+    private static void expand(SearchWorkspace ws, Room room, Position goal, int from, int dx, int dy) {
+        int fx = ws.x(from);
+        int fy = ws.y(from);
+        if (!room.isPassable(fx + dx, fy + dy)) return;
+        int jump = dx != 0 ? jumpHorizontal(ws, room, goal, fx, fy, dx) : jumpVertical(ws, room, goal, fx, fy, dy);
+        if (jump == NONE) return;
+
+        int jx = ws.x(jump);
+        int jy = ws.y(jump);
+        int g = ws.g(from) + Math.abs(jx - fx) + Math.abs(jy - fy);
+        if (g < ws.g(jump)) {
+            ws.set(jump, g, from);
+            ws.open.push(PrimitiveHeap.key(g + heuristic(jx, jy, goal), g), jump);
+        }
+    }
+
+    private static int jumpHorizontal(SearchWorkspace ws, Room room, Position goal, int x, int y, int dx) {
+        // Se arrastran las celdas de arriba/abajo de la columna anterior para
+        // consultar la habitación solo tres veces por paso
+        boolean upBehind = room.isPassable(x, y - 1);
+        boolean downBehind = room.isPassable(x, y + 1);
+        while (true) {
+            x += dx;
+            if (!room.isPassable(x, y)) return NONE;
+            if (x == goal.x && y == goal.y) return ws.index(x, y);
+            boolean up = room.isPassable(x, y - 1);
+            boolean down = room.isPassable(x, y + 1);
+            // Vecino forzado: la celda de arriba/abajo solo es alcanzable girando aquí
+            if ((up && !upBehind) || (down && !downBehind)) return ws.index(x, y);
+            upBehind = up;
+            downBehind = down;
+        }
+    }
+
+    private static int jumpVertical(SearchWorkspace ws, Room room, Position goal, int x, int y, int dy) {
+        boolean leftBehind = room.isPassable(x - 1, y);
+        boolean rightBehind = room.isPassable(x + 1, y);
+        while (true) {
+            y += dy;
+            if (!room.isPassable(x, y)) return NONE;
+            if (x == goal.x && y == goal.y) return ws.index(x, y);
+            boolean left = room.isPassable(x - 1, y);
+            boolean right = room.isPassable(x + 1, y);
+            if ((left && !leftBehind) || (right && !rightBehind)) return ws.index(x, y);
+            // Moviéndose en vertical hay que buscar saltos horizontales en cada paso
+            if ((right && jumpHorizontal(ws, room, goal, x, y, 1) != NONE) ||
+                (left && jumpHorizontal(ws, room, goal, x, y, -1) != NONE)) {
+                return ws.index(x, y);
+            }
+            leftBehind = left;
+            rightBehind = right;
+        }
+    }
+
+    /**
+     * Reconstruye la ruta completa rellenando los tramos rectos entre puntos de salto.
+     */
+    private static List<Position> interpolate(SearchWorkspace ws, Room room, int startCell, int goalCell) {
+        List<Position> path = new ArrayList<>(ws.g(goalCell));
+        for (int cur = goalCell; cur != startCell; cur = ws.parent(cur)) {
+            int prev = ws.parent(cur);
+            int x = ws.x(cur);
+            int y = ws.y(cur);
+            int dx = Integer.signum(ws.x(prev) - x);
+            int dy = Integer.signum(ws.y(prev) - y);
+            while (x != ws.x(prev) || y != ws.y(prev)) {
+                path.add(room.position(x, y));
+                x += dx;
+                y += dy;
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private static int heuristic(int x, int y, Position goal) {
+        return Math.abs(x - goal.x) + Math.abs(y - goal.y);
+    }
+}
@@ -0,0 +1,59 @@
+package pathfinding;
+
+import model.Position;
+import model.Room;
+
+import java.util.List;
+
+/**
+ * Búsqueda de la celda sucia alcanzable más cercana en una sola pasada.
+ * Es un Dijkstra desde el robot con el mismo coste que {@link AStar}
+ * (1 por paso, +1 si la celda ya está limpia) que se detiene en la primera
+ * celda sucia que sale del montículo, así que el trabajo depende de la zona
+ * explorada y no del tamaño de la habitación.
+ */
+public class NearestDirtySearch {
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    /**
+     * @return ruta desde start(excluido) hasta la celda sucia(incluida), o null
+     *         si no queda ninguna celda sucia alcanzable
+     */
+    public static List<Position> findPath(Position start, Room room) {
+        SearchWorkspace ws = SearchWorkspace.current();
+        ws.begin(room);
+        if (!ws.inBounds(start.x, start.y)) return null;
+        int startCell = ws.index(start.x, start.y);
+        ws.set(startCell, 0, startCell);
+        ws.open.push(PrimitiveHeap.key(0, 0), startCell);
+
+        while (!ws.open.isEmpty()) {
+            int d = PrimitiveHeap.f(ws.open.topKey());
+            int current = ws.open.pop();
+            int cx = ws.x(current);
+            int cy = ws.y(current);
+            if (d > ws.g(current)) continue;
+            if (current != startCell && isDirty(room, cx, cy)) {
+                return AStar.toPositions(ws, room, startCell, current);
+            }
+
+            for (int k = 0; k < 4; k++) {
+                int nx = cx + DX[k];
+                int ny = cy + DY[k];
+                if (!room.isPassable(nx, ny)) continue;
+                int neighbor = ws.index(nx, ny);
+                int tentative = d + 1 + (room.isCleaned(nx, ny) ? 1 : 0);
+                if (tentative < ws.g(neighbor)) {
+                    ws.set(neighbor, tentative, current);
+                    ws.open.push(PrimitiveHeap.key(tentative, tentative), neighbor);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDirty(Room room, int x, int y) {
+        return !room.isObstacle(x, y) && !room.isCleaned(x, y);
+    }
+}
@@ -0,0 +1,15 @@
+package pathfinding;
+
+import model.Position;
+import model.Room;
+
+import java.util.List;
+
+/**
+ * Estrategia de cálculo de rutas intercambiable (ej: AStar::findPath, JumpPointSearch::findPath).
+ * Devuelve lista de posiciones desde start(excluido) hasta goal(incluido), o null si no hay ruta.
+ */
+@FunctionalInterface
+public interface PathPlanner {
+    List<Position> findPath(Position start, Position goal, Room room);
+}
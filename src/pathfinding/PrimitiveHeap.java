@@ -0,0 +1,69 @@
+package pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Montículo binario de mínimos con claves long y valores int primitivos.
+ * Los buscadores guardan el índice de celda como valor, así que no se
+ * crea ningún objeto por inserción.
+ */
+final class PrimitiveHeap {
+    private long[] keys = new long[256];
+    private int[] values = new int[256];
+    private int size = 0;
+
+    /**
+     * Clave de A*: menor f primero y, a igual f, mayor g (se avanza hacia la meta
+     * en lugar de expandir todo el frente de empates).
+     */
+    static long key(int f, int g) {
+        return ((long) f << 32) | (Integer.MAX_VALUE - g);
+    }
+
+    static int f(long key) {
+        return (int) (key >>> 32);
+    }
+
+    void push(long key, int value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    long topKey() { return keys[0]; }
+
+    int pop() {
+        int top = values[0];
+        long lastKey = keys[--size];
+        int lastValue = values[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) child = right;
+            if (lastKey <= keys[child]) break;
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        keys[i] = lastKey;
+        values[i] = lastValue;
+        return top;
+    }
+
+    boolean isEmpty() { return size == 0; }
+
+    void clear() { size = 0; }
+}
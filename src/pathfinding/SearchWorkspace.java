@@ -0,0 +1,223 @@
+package pathfinding;
+
+import model.Position;
+import model.Room;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Memoria reutilizable para las búsquedas sobre la rejilla.
+ * Las celdas se indexan como y*width+x. En lugar de limpiar los arrays
+ * entre búsquedas se usa un sello de generación: una celda sólo es
+ * válida si su sello coincide con la generación actual.
+ *
+ * En rejillas de más de {@link #DENSE_LIMIT} celdas no se reservan arrays
+ * del tamaño de la habitación: cada celda que toca la búsqueda recibe un
+ * identificador compacto a través de una tabla hash (x,y) -> id, así que la
+ * memoria depende de la zona explorada.
+ */
+final class SearchWorkspace {
+    static final int INF = Integer.MAX_VALUE;
+    /** Máximo de celdas para indexar directamente con y*width+x. */
+    static final long DENSE_LIMIT = 1 << 24;
+
+    private static final ThreadLocal<SearchWorkspace> CURRENT =
+        ThreadLocal.withInitial(SearchWorkspace::new);
+
+    private int width;
+    private int height;
+    private int[] g = new int[0];
+    private int[] parent = new int[0];
+    private int[] stamp = new int[0];
+    private int generation = 0;
+
+    // Modo disperso: coordenadas por id y tabla hash (x,y) -> id sellada por generación
+    private boolean sparse = false;
+    private int nodeCount = 0;
+    private int[] nodeX = new int[0];
+    private int[] nodeY = new int[0];
+    private long[] slotKey = new long[0];
+    private int[] slotId = new int[0];
+    private int[] slotStamp = new int[0];
+
+    final PrimitiveHeap open = new PrimitiveHeap();
+
+    /**
+     * Workspace del hilo actual (las búsquedas estáticas no comparten estado entre hilos).
+     */
+    static SearchWorkspace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Prepara el workspace para una nueva búsqueda sobre la habitación.
+     */
+    void begin(Room room) {
+        nodeCount = 0;
+        int w = room.getWidth();
+        int h = room.getHeight();
+        if (w != width || h != height) {
+            width = w;
+            height = h;
+            sparse = (long) w * h > DENSE_LIMIT;
+            int cells = sparse ? 1024 : w * h;
+            if (g.length < cells) {
+                g = new int[cells];
+                parent = new int[cells];
+                stamp = new int[cells];
+                Arrays.fill(slotStamp, 0);
+                generation = 0;
+            }
+            if (sparse && nodeX.length < g.length) {
+                nodeX = new int[g.length];
+                nodeY = new int[g.length];
+            }
+            if (sparse && slotKey.length == 0) rehash(2048);
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(slotStamp, 0);
+            generation = 1;
+        }
+        open.clear();
+    }
+
+    int width() { return width; }
+    int height() { return height; }
+
+    int index(int x, int y) { return sparse ? node(x, y) : y * width + x; }
+    int x(int cell) { return sparse ? nodeX[cell] : cell % width; }
+    int y(int cell) { return sparse ? nodeY[cell] : cell / width; }
+
+    /** Id de la celda en modo disperso; la crea (sin visitar) si es nueva en esta búsqueda. */
+    private int node(int x, int y) {
+        long key = ((long) x << 32) | (y & 0xffffffffL);
+        int mask = slotKey.length - 1;
+        int i = (int) (mix(key) & mask);
+        while (slotStamp[i] == generation) {
+            if (slotKey[i] == key) return slotId[i];
+            i = (i + 1) & mask;
+        }
+        int id = nodeCount++;
+        if (id == g.length) growNodes();
+        nodeX[id] = x;
+        nodeY[id] = y;
+        stamp[id] = generation - 1;
+        if (nodeCount * 2 > slotKey.length) {
+            rehash(slotKey.length * 2);
+        } else {
+            slotStamp[i] = generation;
+            slotKey[i] = key;
+            slotId[i] = id;
+        }
+        return id;
+    }
+
+    private void growNodes() {
+        int size = g.length * 2;
+        g = Arrays.copyOf(g, size);
+        parent = Arrays.copyOf(parent, size);
+        stamp = Arrays.copyOf(stamp, size);
+        nodeX = Arrays.copyOf(nodeX, size);
+        nodeY = Arrays.copyOf(nodeY, size);
+    }
+
+    private void rehash(int capacity) {
+        slotKey = new long[capacity];
+        slotId = new int[capacity];
+        slotStamp = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < nodeCount; id++) {
+            long key = ((long) nodeX[id] << 32) | (nodeY[id] & 0xffffffffL);
+            int i = (int) (mix(key) & mask);
+            while (slotStamp[i] == generation) i = (i + 1) & mask;
+            slotStamp[i] = generation;
+            slotKey[i] = key;
+            slotId[i] = id;
+        }
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    boolean visited(int cell) {
+        return stamp[cell] == generation;
+    }
+
+    /**
+     * Entrega el índice (y*width+x) de cada celda que ha tocado la búsqueda actual.
+     */
+    void forEachVisited(LongConsumer action) {
+        if (sparse) {
+            for (int id = 0; id < nodeCount; id++) {
+                if (stamp[id] == generation) action.accept((long) nodeY[id] * width + nodeX[id]);
+            }
+            return;
+        }
+        int cells = width * height;
+        for (int cell = 0; cell < cells; cell++) {
+            if (stamp[cell] == generation) action.accept(cell);
+        }
+    }
+
+    int g(int cell) {
+        return stamp[cell] == generation ? g[cell] : INF;
+    }
+
+    int parent(int cell) {
+        return parent[cell];
+    }
+
+    void set(int cell, int gScore, int parentCell) {
+        stamp[cell] = generation;
+        g[cell] = gScore;
+        parent[cell] = parentCell;
+    }
+
+    /**
+     * Número de pasos desde el origen (excluido) hasta la celda (incluida).
+     */
+    int pathLength(int start, int cell) {
+        int len = 0;
+        for (int cur = cell; cur != start; cur = parent[cur]) len++;
+        return len;
+    }
+
+    /**
+     * Escribe en out los índices (y*width+x) de la ruta hasta cell. Si no cabe,
+     * escribe sólo el prefijo. Devuelve la longitud total de la ruta.
+     */
+    int writePath(int start, int cell, int[] out) {
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Rejilla demasiado grande para índices int: " + width + "x" + height);
+        }
+        int len = pathLength(start, cell);
+        int i = len - 1;
+        for (int cur = cell; cur != start; cur = parent[cur], i--) {
+            if (i < out.length) out[i] = sparse ? nodeY[cur] * width + nodeX[cur] : cur;
+        }
+        return len;
+    }
+
+    /**
+     * Como {@link #writePath(int, int, int[])} con posiciones empaquetadas
+     * ({@link Position#pack}), que valen en rejillas de cualquier tamaño.
+     */
+    int writePath(int start, int cell, long[] out) {
+        int len = pathLength(start, cell);
+        int i = len - 1;
+        for (int cur = cell; cur != start; cur = parent[cur], i--) {
+            if (i < out.length) {
+                out[i] = sparse ? Position.pack(nodeX[cur], nodeY[cur]) : Position.pack(cur % width, cur / width);
+            }
+        }
+        return len;
+    }
+}
@@ -1,16 +1,23 @@
 package robot;
 
+import model.Log;
 import model.Position;
 import model.Room;
 import observer.Observer;
+import observer.ObserverList;
 import observer.RobotObserver;
 import observer.RobotEvent;
 import sensors.SensorReading;
 import sensors.BatteryReading;
 import pathfinding.AStar;
+import pathfinding.PathPlanner;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Robot que observa sensores y mantiene estado.
@@ -22,9 +29,23 @@ public class Robot implements Observer {
     private final Room room;
     private List<Position> path = new ArrayList<>();
     private robot.state.RobotState currentState;
+    // Planificador para volver al cargador. RobotManager pone la ruta del campo de
+    // distancias del sensor de batería; JumpPointSearch::findPath es una alternativa opcional
+    private PathPlanner returnPlanner = AStar::findPath;
 
-    // Lista de observadores del robot
-    private final List<RobotObserver> robotObservers = new ArrayList<>();
+    private static final RobotEvent.Type[] EVENT_TYPES = RobotEvent.Type.values();
+    private static final RobotObserver[] NO_OBSERVERS = new RobotObserver[0];
+
+    // Observadores del robot en orden de registro y tipos de evento de cada uno (por identidad).
+    // Se cambian con el cerrojo de robotObservers; notificar solo lee la tabla publicada
+    private final ObserverList<RobotObserver> robotObservers = new ObserverList<>(NO_OBSERVERS);
+    private final Map<RobotObserver, EnumSet<RobotEvent.Type>> subscriptions = new IdentityHashMap<>();
+    // Tabla de reparto precalculada (copia en escritura): observadores de cada tipo (por ordinal)
+    private volatile RobotObserver[][] observersByType = emptyDispatchTable();
+
+    // Eventos reutilizables, uno por nivel de anidamiento (un observador puede provocar otro evento)
+    private final RobotEvent[] eventPool = new RobotEvent[4];
+    private int dispatchDepth = 0;
 
     // Sistema de batería
     private int batteryLevel;
@@ -43,22 +64,97 @@ public class Robot implements Observer {
     }
 
     // Métodos para gestionar observadores del robot
+    /**
+     * Suscribe el observador a todos los tipos de evento (si ya estaba registrado no cambia nada).
+     */
     public void addRobotObserver(RobotObserver observer) {
-        if (!robotObservers.contains(observer)) {
+        synchronized (robotObservers) {
+            if (!subscriptions.containsKey(observer)) {
+                addRobotObserver(observer, EnumSet.allOf(RobotEvent.Type.class));
+            }
+        }
+    }
+
+    /**
+     * Suscribe el observador solo a los tipos indicados; si ya estaba
+     * registrado, sus tipos pasan a ser estos. Los eventos de tipos sin
+     * suscriptores ni siquiera se rellenan.
+     */
+    public void addRobotObserver(RobotObserver observer, Set<RobotEvent.Type> types) {
+        EnumSet<RobotEvent.Type> copy = EnumSet.noneOf(RobotEvent.Type.class);
+        copy.addAll(types);
+        synchronized (robotObservers) {
+            subscriptions.put(observer, copy);
             robotObservers.add(observer);
+            rebuildDispatchTable();
         }
     }
 
     public void removeRobotObserver(RobotObserver observer) {
-        robotObservers.remove(observer);
+        synchronized (robotObservers) {
+            if (subscriptions.remove(observer) == null) return;
+            robotObservers.remove(observer);
+            rebuildDispatchTable();
+        }
+    }
+
+    private void rebuildDispatchTable() {
+        RobotObserver[] registered = robotObservers.snapshot();
+        RobotObserver[][] table = new RobotObserver[EVENT_TYPES.length][];
+        for (RobotEvent.Type type : EVENT_TYPES) {
+            List<RobotObserver> targets = new ArrayList<>();
+            for (RobotObserver observer : registered) {
+                if (subscriptions.get(observer).contains(type)) targets.add(observer);
+            }
+            table[type.ordinal()] = targets.toArray(NO_OBSERVERS);
+        }
+        observersByType = table;
+    }
+
+    private static RobotObserver[][] emptyDispatchTable() {
+        RobotObserver[][] table = new RobotObserver[EVENT_TYPES.length][];
+        for (int i = 0; i < table.length; i++) table[i] = NO_OBSERVERS;
+        return table;
+    }
+
+    /**
+     * Si algún observador recibe los eventos del tipo indicado (para no
+     * preparar datos caros de un evento que nadie va a ver).
+     */
+    public boolean hasRobotObservers(RobotEvent.Type type) {
+        return observersByType[type.ordinal()].length > 0;
     }
 
-    private void notifyRobotObservers(RobotEvent event) {
-        for (RobotObserver observer : robotObservers) {
-            observer.onRobotEvent(event);
+    /**
+     * Rellena un evento reutilizable (con el id del estado actual) y lo entrega
+     * a los observadores de su tipo. Sin suscriptores de ese tipo no hace
+     * nada, y con ellos no reserva memoria.
+     */
+    private void notifyRobotObservers(RobotEvent.Type type, int x, int y, int value, Object data) {
+        RobotObserver[] targets = observersByType[type.ordinal()];
+        if (targets.length == 0) return;
+        RobotEvent event;
+        if (dispatchDepth < eventPool.length) {
+            if (eventPool[dispatchDepth] == null) eventPool[dispatchDepth] = new RobotEvent();
+            event = eventPool[dispatchDepth];
+        } else {
+            event = new RobotEvent();
+        }
+        event.set(type, x, y, value, currentState != null ? currentState.getId() : RobotEvent.NONE, data);
+        dispatchDepth++;
+        try {
+            for (RobotObserver observer : targets) {
+                observer.onRobotEvent(event);
+            }
+        } finally {
+            dispatchDepth--;
         }
     }
 
+    private void notifyRobotObservers(RobotEvent.Type type, Position p) {
+        notifyRobotObservers(type, p.x, p.y, 0, p);
+    }
+
     public int getRobotObserverCount() {
         return robotObservers.size();
     }
@@ -74,7 +170,7 @@ public class Robot implements Observer {
         // limpiar ruta anterior
         this.path = new ArrayList<>();
         // Notificar cambio de posición
-        notifyRobotObservers(new RobotEvent(RobotEvent.Type.POSITION_CHANGED, p));
+        notifyRobotObservers(RobotEvent.Type.POSITION_CHANGED, p);
     }
 
     public void setCharger(Position charger) {
@@ -98,13 +194,14 @@ public class Robot implements Observer {
                 !(currentState instanceof robot.state.ReturningState) &&
                 !(currentState instanceof robot.state.ChargingState)) {
 
-                System.out.println("⚠️ DECISIÓN DE RETORNO:");
-                System.out.println("   Batería actual: " + batteryReading.getCurrentBattery() + "/" + batteryReading.getMaxBattery());
-                System.out.println("   Distancia REAL al cargador (A*): " + batteryReading.getRealDistanceToCharger() + " movimientos");
-                System.out.println("   Conclusión: Batería < Distancia → DEBE VOLVER AHORA");
-                System.out.println("   🔋 Regresando al cargador...");
+                Log.println("⚠️ DECISIÓN DE RETORNO:");
+                Log.println("   Batería actual: " + batteryReading.getCurrentBattery() + "/" + batteryReading.getMaxBattery());
+                Log.println("   Distancia REAL al cargador (BFS): " + batteryReading.getRealDistanceToCharger() + " movimientos");
+                Log.println("   Conclusión: Batería < Distancia → DEBE VOLVER AHORA");
+                Log.println("   🔋 Regresando al cargador...");
 
-                notifyRobotObservers(new RobotEvent(RobotEvent.Type.BATTERY_LOW, batteryReading));
+                notifyRobotObservers(RobotEvent.Type.BATTERY_LOW, RobotEvent.NONE, RobotEvent.NONE,
+                    batteryReading.getCurrentBattery(), batteryReading);
                 setState(new robot.state.ReturningState());
             }
 
@@ -112,9 +209,9 @@ public class Robot implements Observer {
             if ((batteryReading.isCritical() || !batteryReading.canReachCharger()) &&
                 !(currentState instanceof robot.state.IdleState)) {
                 if (!batteryReading.canReachCharger()) {
-                    System.out.println("❌ ¡NO HAY RUTA AL CARGADOR! Deteniendo...");
+                    Log.println("❌ ¡NO HAY RUTA AL CARGADOR! Deteniendo...");
                 } else {
-                    System.out.println("❌ Batería agotada!");
+                    Log.println("❌ Batería agotada!");
                 }
                 setState(new robot.state.IdleState());
             }
@@ -125,7 +222,10 @@ public class Robot implements Observer {
         if (reading.getType() == SensorReading.Type.FRONT &&
             reading.isObstacleDetected() &&
             reading.getDistance() == 1) {
-            notifyRobotObservers(new RobotEvent(RobotEvent.Type.OBSTACLE_DETECTED, reading));
+            Position origin = reading.getOrigin();
+            notifyRobotObservers(RobotEvent.Type.OBSTACLE_DETECTED,
+                origin != null ? origin.x : RobotEvent.NONE, origin != null ? origin.y : RobotEvent.NONE,
+                reading.getDistance(), reading);
         }
     }
 
@@ -165,8 +265,8 @@ public class Robot implements Observer {
         if (this.currentState != null) {
             this.currentState.onEnter(this);
             // Notificar cambio de estado
-            notifyRobotObservers(new RobotEvent(RobotEvent.Type.STATE_CHANGED,
-                state != null ? state.getClass().getSimpleName() : "null"));
+            notifyRobotObservers(RobotEvent.Type.STATE_CHANGED, RobotEvent.NONE, RobotEvent.NONE, 0,
+                state.getClass().getSimpleName());
         }
     }
 
@@ -189,7 +289,7 @@ public class Robot implements Observer {
 
         // Verificar si hay batería suficiente
         if (batteryLevel <= 0) {
-            System.out.println("❌ Sin batería para moverse!");
+            Log.println("❌ Sin batería para moverse!");
             setState(new robot.state.IdleState());
             return;
         }
@@ -199,7 +299,7 @@ public class Robot implements Observer {
         boolean isBlocked = room.isObstacle(next) && !room.hasChargerAt(next);
         if (!room.inBounds(next) || isBlocked) {
             // obstáculo inesperado (pero no el cargador)
-            notifyRobotObservers(new RobotEvent(RobotEvent.Type.OBSTACLE_DETECTED, next));
+            notifyRobotObservers(RobotEvent.Type.OBSTACLE_DETECTED, next);
             setState(new robot.state.RecalculatingState());
             return;
         }
@@ -211,20 +311,31 @@ public class Robot implements Observer {
         consumeBattery(BATTERY_CONSUMPTION_PER_MOVE);
 
         // Notificar cambio de posición
-        notifyRobotObservers(new RobotEvent(RobotEvent.Type.POSITION_CHANGED, next));
+        notifyRobotObservers(RobotEvent.Type.POSITION_CHANGED, next);
     }
 
     public void recalculatePathTo(Position goal) {
         // usar A*
-        List<Position> newPath = AStar.findPath(current, goal, room);
+        recalculatePathTo(goal, AStar::findPath);
+    }
+
+    /**
+     * Calcula la ruta al cargador con el planificador de retorno.
+     */
+    public void recalculatePathToCharger() {
+        if (charger != null) recalculatePathTo(charger, returnPlanner);
+    }
+
+    public void recalculatePathTo(Position goal, PathPlanner planner) {
+        List<Position> newPath = planner.findPath(current, goal, room);
         if (newPath == null) {
             this.path = new ArrayList<>();
         } else {
             this.path = newPath;
         }
         // Notificar que se calculó una ruta
-        notifyRobotObservers(new RobotEvent(RobotEvent.Type.PATH_CALCULATED,
-            newPath != null ? newPath.size() : 0));
+        notifyRobotObservers(RobotEvent.Type.PATH_CALCULATED, RobotEvent.NONE, RobotEvent.NONE,
+            newPath != null ? newPath.size() : 0, null);
     }
 
     public void recalculatePathToNextTarget() {
@@ -233,21 +344,36 @@ public class Robot implements Observer {
 
     // Métodos adicionales para notificar eventos específicos
     public void notifyBatteryLow() {
-        notifyRobotObservers(new RobotEvent(RobotEvent.Type.BATTERY_LOW, null));
+        notifyRobotObservers(RobotEvent.Type.BATTERY_LOW, RobotEvent.NONE, RobotEvent.NONE,
+            batteryLevel, null);
     }
 
     public void notifyCleaningCompleted() {
-        notifyRobotObservers(new RobotEvent(RobotEvent.Type.CLEANING_COMPLETED, null));
+        notifyRobotObservers(RobotEvent.Type.CLEANING_COMPLETED, RobotEvent.NONE, RobotEvent.NONE,
+            0, null);
     }
 
     public void notifyReturnedToCharger() {
-        notifyRobotObservers(new RobotEvent(RobotEvent.Type.RETURNED_TO_CHARGER, charger));
+        if (charger != null) {
+            notifyRobotObservers(RobotEvent.Type.RETURNED_TO_CHARGER, charger);
+        } else {
+            notifyRobotObservers(RobotEvent.Type.RETURNED_TO_CHARGER, RobotEvent.NONE, RobotEvent.NONE,
+                0, null);
+        }
     }
 
     public Room getRoom() {
         return room;
     }
 
+    public PathPlanner getReturnPlanner() {
+        return returnPlanner;
+    }
+
+    public void setReturnPlanner(PathPlanner returnPlanner) {
+        this.returnPlanner = returnPlanner != null ? returnPlanner : AStar::findPath;
+    }
+
     public robot.state.RobotState getCurrentState() {
         return currentState;
     }
@@ -1,20 +1,26 @@
 package robot;
 
+import model.Log;
 import model.Position;
 import model.Room;
+import model.RoomListener;
 import sensors.SimulatedProximitySensor;
 import sensors.SensorReading;
 import sensors.BatterySensor;
 import sensors.BatteryReading;
 import pathfinding.AStar;
+import pathfinding.DStarLite;
+import pathfinding.NearestDirtySearch;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Coordina la simulación: sensores, robot y tick.
  */
 public class RobotManager {
+    // Distancia a partir de la cual se usa el índice de suciedad + A* en lugar de la expansión local
+    private static final int LOCAL_SEARCH_RADIUS = 32;
+
     private final Room room;
     private final Robot robot;
     private final SimulatedProximitySensor front;
@@ -27,9 +33,19 @@ public class RobotManager {
     private sensors.SensorReading rightReading = null;
     private BatteryReading batteryReading = null;
 
-    private final List<Position> inaccessible = new ArrayList<>();
+    // Zona alcanzable (bit y*width+x) según el último A* sin ruta; null si no se conoce
+    private long[] reachable = null;
+    private final RoomListener obstacleListener = this::onObstacleChanged;
     private int robotMoveCount = 0;
 
+    // Objetivo actual y planificador incremental para reparar la ruta hacia él
+    private Position currentTarget = null;
+    private DStarLite replanner = null;
+
+    // Estado tras el último tick, para saber si las lecturas de los sensores siguen valiendo
+    private long versionAfterTick = -1;
+    private Position positionAfterTick = null;
+
     public RobotManager(Room room, Position start) {
         this(room, start, 100); // Batería por defecto: 100
     }
@@ -47,6 +63,20 @@ public class RobotManager {
         left.register(robot);
         right.register(robot);
         batterySensor.register(robot);
+
+        // Volver al cargador por la misma ruta que mide el sensor de batería
+        robot.setReturnPlanner(batterySensor::findPathToCharger);
+
+        room.addListener(obstacleListener);
+    }
+
+    /**
+     * Deja de escuchar los cambios de la habitación (la del gestor y la del
+     * sensor de batería). El gestor no debe usarse después.
+     */
+    public void detach() {
+        room.removeListener(obstacleListener);
+        batterySensor.detach();
     }
 
     public Robot getRobot() { return robot; }
@@ -61,12 +91,12 @@ public class RobotManager {
         int currentBatteryLevel = robot.getBatteryLevel();
 
         // Chequear batería ANTES de hacer cualquier cosa
-        // Usa A* para calcular distancia REAL al cargador
+        // Usa el campo de distancias para conocer la distancia REAL al cargador
         batteryReading = batterySensor.checkBattery(
             robot.getCurrent(),
             robot.getCharger(),
             currentBatteryLevel,
-            room  // Pasar room para cálculo con A*
+            room  // Pasar room para el campo de distancias
         );
 
         // sensores escanean desde la posicion actual
@@ -88,8 +118,10 @@ public class RobotManager {
                     selectNextTarget();
                 }
             } else if (robot.getCurrentState() instanceof robot.state.RecalculatingState) {
-                // Recalcular ruta al mismo objetivo o seleccionar uno nuevo
-                selectNextTarget();
+                // Reparar la ruta al mismo objetivo o seleccionar uno nuevo
+                if (!repairPathToTarget()) {
+                    selectNextTarget();
+                }
                 if (robot.hasPath()) {
                     robot.setState(new robot.state.CleaningState());
                 }
@@ -107,6 +139,39 @@ public class RobotManager {
 
         // Actualizar obstáculos dinámicos (gatos)
         room.updateDynamicObstacles(robotMoveCount);
+
+        versionAfterTick = room.getVersion();
+        positionAfterTick = robot.getCurrent();
+    }
+
+    /**
+     * Adelanta de golpe hasta limit ticks en los que solo avanzaría el estado
+     * actual del robot (la carga en el cargador): robot quieto, habitación sin
+     * cambios desde el último tick y obstáculos dinámicos que no se van a
+     * mover. Los sensores de proximidad darían las mismas lecturas, así que se
+     * vuelven a entregar tal cual una vez por tick adelantado y el robot emite
+     * los mismos eventos que paso a paso; las de batería no se repiten porque
+     * en el cargador y con carga no provocan nada. El tick que cambia de estado no se
+     * adelanta: lo ejecuta el siguiente {@link #tick()}.
+     * @return ticks adelantados (0 si no se puede)
+     */
+    public long fastForward(long limit) {
+        robot.state.RobotState state = robot.getCurrentState();
+        if (state == null || limit <= 0 || frontReading == null) return 0;
+        long ticks = Math.min(limit, state.quiescentTicks(robot));
+        if (ticks <= 0) return 0;
+        if (room.getVersion() != versionAfterTick || !robot.getCurrent().equals(positionAfterTick)) return 0;
+        for (model.DynamicObstacle obstacle : room.getDynamicObstacles()) {
+            if (!obstacle.getStrategy().isIdleAt(robotMoveCount)) return 0;
+        }
+
+        for (long i = 0; i < ticks; i++) {
+            front.notifyObservers(frontReading);
+            left.notifyObservers(leftReading);
+            right.notifyObservers(rightReading);
+        }
+        state.fastForward(robot, ticks);
+        return ticks;
     }
 
     public sensors.SensorReading getFrontReading() { return frontReading; }
@@ -117,51 +182,78 @@ public class RobotManager {
 
     /**
      * Selecciona el siguiente objetivo no limpiado más cercano.
+     * Una sola expansión desde el robot encuentra a la vez la celda sucia
+     * alcanzable más cercana y su ruta; las zonas inalcanzables nunca se eligen.
+     * Cuando la suciedad restante está lejos se consulta antes el índice
+     * espacial de la habitación y se planifica directamente hacia ella; si no
+     * hay ruta, la celda se marca inaccesible y el índice la salta en las
+     * siguientes consultas.
      */
     private void selectNextTarget() {
-        List<Position> uncleaned = room.getUncleanedPositions();
-
         // Verificar si ya se limpiaron todas las celdas
-        if (uncleaned.isEmpty()) {
-            System.out.println("¡Limpieza completada!");
+        if (room.isFullyCleaned()) {
+            Log.println("¡Limpieza completada!");
             robot.notifyCleaningCompleted();
             robot.setState(new robot.state.IdleState());
             return;
         }
 
-        // Encontrar la celda sucia más cercana
         Position current = robot.getCurrent();
-        Position nearest = null;
-        int minDistance = Integer.MAX_VALUE;
-
-        for (Position p : uncleaned) {
-            if (inaccessible.contains(p)) continue;
+        List<Position> path = null;
 
-            int distance = current.manhattanDistance(p);
-            if (distance < minDistance) {
-                minDistance = distance;
-                nearest = p;
-            }
+        // Si la suciedad más cercana está lejos (final de la limpieza en salas
+        // grandes), ir directo a ella con A* en vez de expandir toda la zona limpia
+        Position nearestDirty = reachable == null
+            ? room.findNearestDirtyCell(current)
+            : room.findNearestDirtyCell(current, p -> !isReachable(p.x, p.y));
+        if (nearestDirty != null && current.manhattanDistance(nearestDirty) > LOCAL_SEARCH_RADIUS) {
+            path = findPathOrRememberReachable(current, nearestDirty, room);
+        }
+        if (path == null) {
+            path = NearestDirtySearch.findPath(current, room);
         }
 
-        // Si encontramos un objetivo, calcular ruta
-        if (nearest != null) {
-            List<Position> path = AStar.findPath(current, nearest, room);
-            if (path != null && !path.isEmpty()) {
-                robot.setPath(path);
-                System.out.println("Nueva ruta calculada hacia " + nearest + " (distancia: " + minDistance + ")");
-            } else {
-                inaccessible.add(nearest);
-                // Intentar con otro objetivo
-                selectNextTarget();
-            }
+        if (path != null && !path.isEmpty()) {
+            Position nearest = path.get(path.size() - 1);
+            robot.setPath(path);
+            currentTarget = nearest;
+            Log.println("Nueva ruta calculada hacia " + nearest + " (distancia: " + path.size() + ")");
         } else {
             // No hay objetivos accesibles
-            System.out.println("No hay más objetivos accesibles");
+            Log.println("No hay más objetivos accesibles");
             robot.setState(new robot.state.IdleState());
         }
     }
 
+    /**
+     * Repara la ruta hacia el objetivo actual con D* Lite tras un obstáculo inesperado.
+     * El árbol de búsqueda se conserva entre recálculos al mismo objetivo, así que
+     * solo se revisan las celdas afectadas por el movimiento de los gatos.
+     * @return true si se asignó una ruta nueva
+     */
+    private boolean repairPathToTarget() {
+        Position target = currentTarget;
+        if (target == null || room.isCleaned(target) || room.isObstacle(target)) return false;
+
+        // En habitaciones enormes no se reservan los arrays de D* Lite: se elige objetivo de nuevo
+        if (!DStarLite.supports(room)) return false;
+
+        Position current = robot.getCurrent();
+        if (replanner == null) replanner = new DStarLite(room);
+        if (!target.equals(replanner.getGoal())) {
+            replanner.reset(current, target);
+        } else {
+            replanner.updateStart(current);
+            replanner.syncRoomChanges();
+        }
+
+        List<Position> path = replanner.findPath();
+        if (path == null || path.isEmpty()) return false;
+        robot.setPath(path);
+        Log.println("Ruta reparada hacia " + target + " (" + path.size() + " pasos)");
+        return true;
+    }
+
     public int getFrontObserverCount() { return front.getObserverCount(); }
     public int getLeftObserverCount() { return left.getObserverCount(); }
     public int getRightObserverCount() { return right.getObserverCount(); }
@@ -173,9 +265,50 @@ public class RobotManager {
     public void setCharger(Position p) { robot.setCharger(p); }
 
     public void requestPathTo(Position goal) {
-        robot.recalculatePathTo(goal);
-        // si no hay path, marcar inaccessible
-        if (!robot.hasPath()) inaccessible.add(goal);
+        robot.recalculatePathTo(goal, this::findPathOrRememberReachable);
+    }
+
+    /**
+     * A* que, si no hay ruta, guarda las celdas que ha explorado: son toda la
+     * zona alcanzable desde el origen, así que cualquier otra celda sucia
+     * tampoco tiene ruta y el índice de suciedad la salta.
+     */
+    private List<Position> findPathOrRememberReachable(Position start, Position goal, Room room) {
+        List<Position> path = AStar.findPath(start, goal, room);
+        if (path == null && room.inBounds(goal)) {
+            long[] bits = new long[(int) (((long) room.getWidth() * room.getHeight() + 63) >>> 6)];
+            AStar.forEachReached(i -> bits[(int) (i >>> 6)] |= 1L << i);
+            reachable = bits;
+        }
+        return path;
+    }
+
+    private boolean isReachable(int x, int y) {
+        long i = (long) y * room.getWidth() + x;
+        return (reachable[(int) (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    /**
+     * Solo una celda que queda libre puede ampliar la zona alcanzable: se
+     * añade si toca la zona, y si además une otra zona se olvida todo.
+     */
+    private void onObstacleChanged(int x, int y) {
+        if (reachable == null || !room.isPassable(x, y)) return;
+        boolean touchesReachable = false;
+        boolean touchesOther = false;
+        for (int d = 0; d < 4; d++) {
+            int nx = x + (d == 0 ? 1 : d == 1 ? -1 : 0);
+            int ny = y + (d == 2 ? 1 : d == 3 ? -1 : 0);
+            if (!room.isPassable(nx, ny)) continue;
+            if (isReachable(nx, ny)) touchesReachable = true; else touchesOther = true;
+        }
+        if (!touchesReachable) return;
+        if (touchesOther) {
+            reachable = null;
+        } else {
+            long i = (long) y * room.getWidth() + x;
+            reachable[(int) (i >>> 6)] |= 1L << i;
+        }
     }
 }
 
@@ -1,5 +1,6 @@
 package robot.state;
 
+import model.Log;
 import robot.Robot;
 
 /**
@@ -9,14 +10,19 @@ import robot.Robot;
 public class ChargingState implements RobotState {
     private static final int CHARGE_RATE = 5; // Energía recuperada por tick
 
+    @Override
+    public int getId() {
+        return CHARGING;
+    }
+
     @Override
     public void onEnter(Robot robot) {
-        System.out.println("🔌 Robot cargando...");
+        Log.println("🔌 Robot cargando...");
     }
 
     @Override
     public void onExit(Robot robot) {
-        System.out.println("✓ Batería llena. Reanudando limpieza...");
+        Log.println("✓ Batería llena. Reanudando limpieza...");
     }
 
     @Override
@@ -29,5 +35,22 @@ public class ChargingState implements RobotState {
             robot.setState(new CleaningState());
         }
     }
+
+    /**
+     * Todos los ticks hasta llenar la batería salvo el último, que es el que
+     * cambia de estado. Con batería 0 el sensor la da por agotada y no se adelanta.
+     */
+    @Override
+    public long quiescentTicks(Robot robot) {
+        int level = robot.getBatteryLevel();
+        if (level <= 0) return 0;
+        long ticksToFull = (robot.getMaxBattery() - level + CHARGE_RATE - 1) / CHARGE_RATE;
+        return Math.max(0, ticksToFull - 1);
+    }
+
+    @Override
+    public void fastForward(Robot robot, long ticks) {
+        robot.chargeBattery((int) Math.min(Integer.MAX_VALUE, ticks * CHARGE_RATE));
+    }
 }
 
@@ -3,6 +3,11 @@ package robot.state;
 import robot.Robot;
 
 public class CleaningState implements RobotState {
+    @Override
+    public int getId() {
+        return CLEANING;
+    }
+
     @Override
     public void onEnter(Robot robot) {
         // Al entrar en estado de limpieza, limpiar la celda actual
@@ -3,6 +3,11 @@ package robot.state;
 import robot.Robot;
 
 public class IdleState implements RobotState {
+    @Override
+    public int getId() {
+        return IDLE;
+    }
+
     @Override
     public void onEnter(Robot robot) {
         // TODO: acciones al entrar en Idle
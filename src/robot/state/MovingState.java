@@ -3,6 +3,11 @@ package robot.state;
 import robot.Robot;
 
 public class MovingState implements RobotState {
+    @Override
+    public int getId() {
+        return MOVING;
+    }
+
     @Override
     public void onEnter(Robot robot) {
         // TODO: preparar movimiento
@@ -3,6 +3,11 @@ package robot.state;
 import robot.Robot;
 
 public class RecalculatingState implements RobotState {
+    @Override
+    public int getId() {
+        return RECALCULATING;
+    }
+
     @Override
     public void onEnter(Robot robot) {
         // Al entrar en recalculating, dejamos que el RobotManager solicite una nueva ruta.
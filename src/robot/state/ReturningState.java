@@ -1,23 +1,27 @@
 package robot.state;
 
+import model.Log;
 import robot.Robot;
 
 /**
  * Estado cuando el robot está regresando al cargador.
  */
 public class ReturningState implements RobotState {
+    @Override
+    public int getId() {
+        return RETURNING;
+    }
+
     @Override
     public void onEnter(Robot robot) {
-        System.out.println("🔋 Robot regresando al cargador...");
+        Log.println("🔋 Robot regresando al cargador...");
         // Calcular ruta al cargador
-        if (robot.getCharger() != null) {
-            robot.recalculatePathTo(robot.getCharger());
-        }
+        robot.recalculatePathToCharger();
     }
 
     @Override
     public void onExit(Robot robot) {
-        System.out.println("✓ Robot llegó al cargador");
+        Log.println("✓ Robot llegó al cargador");
     }
 
     @Override
@@ -33,9 +37,7 @@ public class ReturningState implements RobotState {
             robot.performMoveStep();
         } else {
             // Sin ruta al cargador, recalcular
-            if (robot.getCharger() != null) {
-                robot.recalculatePathTo(robot.getCharger());
-            }
+            robot.recalculatePathToCharger();
         }
     }
 }
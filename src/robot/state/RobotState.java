@@ -3,8 +3,52 @@ package robot.state;
 import robot.Robot;
 
 public interface RobotState {
+    // Ids de los estados para los eventos del robot (RobotEvent.getStateId)
+    int IDLE = 0;
+    int CLEANING = 1;
+    int MOVING = 2;
+    int RECALCULATING = 3;
+    int RETURNING = 4;
+    int CHARGING = 5;
+
+    /**
+     * Id del estado (una de las constantes de esta interfaz).
+     */
+    int getId();
+
+    /**
+     * Nombre de la clase del estado con ese id (como getSimpleName), para
+     * mostrar el estado de un evento sin consultar el robot.
+     */
+    static String nameOf(int id) {
+        switch (id) {
+            case IDLE: return "IdleState";
+            case CLEANING: return "CleaningState";
+            case MOVING: return "MovingState";
+            case RECALCULATING: return "RecalculatingState";
+            case RETURNING: return "ReturningState";
+            case CHARGING: return "ChargingState";
+            default: return "NULL";
+        }
+    }
+
     void onEnter(Robot robot);
     void onExit(Robot robot);
     void tick(Robot robot);
+
+    /**
+     * Número de ticks siguientes que, con el robot quieto y la habitación sin
+     * cambios, solo avanzarían contadores internos del estado sin cambiar de
+     * estado ni emitir eventos propios. Se pueden aplicar de golpe con
+     * {@link #fastForward(Robot, long)}. Por defecto ninguno.
+     */
+    default long quiescentTicks(Robot robot) {
+        return 0;
+    }
+
+    /**
+     * Aplica de golpe el efecto de ticks ticks (como mucho quiescentTicks).
+     */
+    default void fastForward(Robot robot, long ticks) {}
 }
 
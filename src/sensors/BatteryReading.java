@@ -4,12 +4,12 @@ import model.Position;
 
 /**
  * Lectura del sensor de batería.
- * Incluye la distancia REAL (calculada con A*) al cargador.
+ * Incluye la distancia REAL (campo de distancias BFS) al cargador.
  */
 public class BatteryReading extends SensorReading {
     private final int currentBattery;
     private final int maxBattery;
-    private final int realDistanceToCharger; // Distancia calculada con A*
+    private final int realDistanceToCharger; // Distancia real (BFS desde el cargador)
     private final boolean needsCharging;
     private final boolean critical;
     private final boolean canReachCharger;
@@ -39,7 +39,7 @@ public class BatteryReading extends SensorReading {
 
     @Override
     public String toString() {
-        return String.format("BatteryReading{level=%d/%d (%d%%), realDistance=%d (A*), needsCharging=%b, critical=%b, canReach=%b}",
+        return String.format("BatteryReading{level=%d/%d (%d%%), realDistance=%d (BFS), needsCharging=%b, critical=%b, canReach=%b}",
             currentBattery, maxBattery, getBatteryPercentage(), realDistanceToCharger, needsCharging, critical, canReachCharger);
     }
 }
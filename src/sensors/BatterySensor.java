@@ -3,20 +3,28 @@ package sensors;
 import model.Position;
 import model.Room;
 import observer.Observer;
+import observer.ObserverList;
 import observer.Subject;
-import pathfinding.AStar;
+import pathfinding.ChargerDistance;
+import pathfinding.ChargerDistanceField;
+import pathfinding.ChargerRoute;
+import pathfinding.JumpPointSearch;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Sensor de batería que monitorea el nivel de energía del robot.
- * Calcula la distancia real (A*) al cargador para decidir cuándo volver.
+ * Obtiene la distancia real al cargador de un campo de distancias BFS
+ * precalculado (consulta O(1) por tick) para decidir cuándo volver; en
+ * habitaciones demasiado grandes para el campo usa una ruta A* cacheada.
  */
 public class BatterySensor implements Subject {
     private int batteryLevel;
     private final int maxBattery;
-    private final List<Observer> observers = new ArrayList<>();
+    // Copia en escritura: se puede registrar desde la GUI mientras la simulación notifica
+    private final ObserverList<Observer> observers = new ObserverList<>(new Observer[0]);
+    private ChargerDistance distanceField;
 
     public BatterySensor(int maxBattery) {
         this.maxBattery = maxBattery;
@@ -35,8 +43,9 @@ public class BatterySensor implements Subject {
 
     @Override
     public void notifyObservers(Object event) {
-        for (Observer o : observers) {
-            o.update((BatteryReading) event);
+        BatteryReading reading = (BatteryReading) event;
+        for (Observer o : observers.snapshot()) {
+            o.update(reading);
         }
     }
 
@@ -55,11 +64,11 @@ public class BatterySensor implements Subject {
     }
 
     /**
-     * Verifica el nivel de batería usando A* para calcular distancia real al cargador.
+     * Verifica el nivel de batería usando el campo de distancias para conocer la distancia real al cargador.
      * @param currentPos Posición actual del robot
      * @param chargerPos Posición del cargador
      * @param currentBatteryLevel Nivel actual de batería del robot
-     * @param room La habitación para calcular ruta con A*
+     * @param room La habitación sobre la que se mantiene el campo de distancias
      */
     public BatteryReading checkBattery(Position currentPos, Position chargerPos,
                                        int currentBatteryLevel, Room room) {
@@ -73,11 +82,11 @@ public class BatterySensor implements Subject {
         if (chargerPos != null && currentPos.equals(chargerPos)) {
             realDistanceToCharger = 0;
         } else if (chargerPos != null && room != null) {
-            // Calcular distancia REAL usando A* (no Manhattan)
-            List<Position> pathToCharger = AStar.findPath(currentPos, chargerPos, room);
+            // Distancia REAL (BFS desde el cargador, no Manhattan)
+            int distance = distanceField(room, chargerPos).distanceFrom(currentPos.x, currentPos.y);
 
-            if (pathToCharger != null && !pathToCharger.isEmpty()) {
-                realDistanceToCharger = pathToCharger.size()+5; // +5 para margen de seguridad
+            if (distance != ChargerDistance.UNREACHABLE) {
+                realDistanceToCharger = distance + 5; // +5 para margen de seguridad
             } else {
                 // No hay ruta al cargador - crítico
                 canReachCharger = false;
@@ -106,6 +115,36 @@ public class BatterySensor implements Subject {
         return reading;
     }
 
+    /**
+     * Ruta al cargador coherente con la distancia que mide el sensor: desciende
+     * por el campo de distancias. Se usa como planificador de retorno del robot.
+     */
+    public List<Position> findPathToCharger(Position start, Position charger, Room room) {
+        if (start.equals(charger)) return new ArrayList<>();
+        if (room == null) return null;
+        List<Position> path = distanceField(room, charger).pathFrom(start);
+        return path != null ? path : JumpPointSearch.findPath(start, charger, room);
+    }
+
+    private ChargerDistance distanceField(Room room, Position chargerPos) {
+        if (distanceField == null || distanceField.getRoom() != room) {
+            if (distanceField != null) distanceField.detach();
+            distanceField = ChargerDistanceField.supports(room)
+                ? new ChargerDistanceField(room)
+                : new ChargerRoute(room);
+        }
+        distanceField.setRoot(chargerPos);
+        return distanceField;
+    }
+
+    /**
+     * Suelta el campo de distancias, que escucha los cambios de la habitación.
+     */
+    public void detach() {
+        if (distanceField != null) distanceField.detach();
+        distanceField = null;
+    }
+
     public int getBatteryLevel() {
         return batteryLevel;
     }
@@ -2,18 +2,17 @@ package sensors;
 
 import model.Position;
 import model.Room;
+import observer.ObserverList;
 import observer.Subject;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Sensor de proximidad simulado con alcance fijo.
  */
 public class SimulatedProximitySensor implements Subject {
     private final SensorReading.Type type;
     private final int range;
-    private final List<observer.Observer> observers = new ArrayList<>();
+    // Copia en escritura: se puede registrar desde la GUI mientras la simulación notifica
+    private final ObserverList<observer.Observer> observers = new ObserverList<>(new observer.Observer[0]);
 
     public SimulatedProximitySensor(SensorReading.Type type, int range) {
         this.type = type;
@@ -28,8 +27,9 @@ public class SimulatedProximitySensor implements Subject {
 
     @Override
     public void notifyObservers(Object event) {
-        for (observer.Observer o : observers) {
-            o.update((SensorReading) event);
+        SensorReading reading = (SensorReading) event;
+        for (observer.Observer o : observers.snapshot()) {
+            o.update(reading);
         }
     }
 
@@ -48,9 +48,10 @@ public class SimulatedProximitySensor implements Subject {
         int foundDist = -1;
         boolean found = false;
         for (int d = 1; d <= range; d++) {
-            Position p = new Position(origin.x + dx * d, origin.y + dy * d);
-            if (!room.inBounds(p)) { foundDist = d; found = true; break; }
-            if (room.isObstacle(p)) { foundDist = d; found = true; break; }
+            int x = origin.x + dx * d;
+            int y = origin.y + dy * d;
+            if (!room.inBounds(x, y)) { foundDist = d; found = true; break; }
+            if (room.isObstacle(x, y)) { foundDist = d; found = true; break; }
         }
 
         SensorReading reading = new SensorReading(type, found ? foundDist : -1, found, origin);
@@ -63,7 +64,7 @@ public class SimulatedProximitySensor implements Subject {
     public String getObserversInfo() {
         if (observers.isEmpty()) return "(none)";
         StringBuilder sb = new StringBuilder();
-        for (observer.Observer o : observers) {
+        for (observer.Observer o : observers.snapshot()) {
             sb.append(o.getClass().getSimpleName()).append(" ");
         }
         return sb.toString().trim();
@@ -0,0 +1,182 @@
+package simulation;
+
+import maps.RoomGenerator;
+import model.Room;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Ejecuta muchas simulaciones independientes en paralelo sobre un
+ * ForkJoinPool, una tarea por escenario.
+ *
+ * Cada tarea crea su propia habitación, su robot y su motor, así que no hay
+ * estado compartido entre simulaciones: los buscadores de rutas usan espacio
+ * de trabajo por hilo y los mensajes de consola se silencian por hilo (ver
+ * {@link model.Log}). Los resultados se devuelven en el orden de los
+ * escenarios y no dependen del número de hilos.
+ */
+public class BatchRunner {
+    private final int parallelism;
+    private long maxTicks = 1_000_000;
+
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRunner(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism debe ser >= 1");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Límite de ticks de cada simulación (1.000.000 por defecto).
+     */
+    public BatchRunner setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+        return this;
+    }
+
+    /**
+     * Ejecuta todos los escenarios y devuelve sus resultados en el mismo orden.
+     * Una simulación que falla no detiene el lote: su resultado es FAILED.
+     */
+    public List<SimulationResult> run(List<Scenario> scenarios) throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Callable<SimulationResult>> tasks = new ArrayList<>(scenarios.size());
+            for (Scenario scenario : scenarios) tasks.add(() -> runOne(scenario));
+            List<SimulationResult> results = new ArrayList<>(scenarios.size());
+            for (Future<SimulationResult> future : pool.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Fallo inesperado en el lote", e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private SimulationResult runOne(Scenario scenario) {
+        long started = System.nanoTime();
+        try {
+            Room room = scenario.createRoom();
+            return SimulationEngine.forRoom(room, scenario.getBatteryCapacity())
+                .setMaxTicks(maxTicks)
+                .run();
+        } catch (RuntimeException e) {
+            System.err.println("Simulación fallida (" + scenario + "): " + e);
+            return new SimulationResult(SimulationResult.StopReason.FAILED, 0, 0,
+                System.nanoTime() - started, 0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Producto cartesiano de distribuciones, lados, capacidades de batería y
+     * repeticiones. La semilla de cada escenario se deriva de baseSeed y de
+     * su posición en la lista.
+     */
+    public static List<Scenario> sweep(List<RoomGenerator.Layout> layouts, int[] sizes, int[] batteries,
+                                       int cats, int repetitions, long baseSeed) {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (RoomGenerator.Layout layout : layouts) {
+            for (int size : sizes) {
+                for (int battery : batteries) {
+                    for (int r = 0; r < repetitions; r++) {
+                        long seed = baseSeed + 0x9E3779B97F4A7C15L * (scenarios.size() + 1);
+                        scenarios.add(new Scenario(size, size, layout, cats, battery, seed));
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * Una línea por simulación, con cabecera.
+     */
+    public static void writeCsv(List<Scenario> scenarios, List<SimulationResult> results, Writer out) {
+        PrintWriter pw = new PrintWriter(out);
+        pw.println("layout,width,height,cats,battery,seed,reason,ticks,simulated_s,elapsed_ms,"
+            + "moves,cleaned,cleanable,coverage,battery_left");
+        for (int i = 0; i < scenarios.size(); i++) {
+            Scenario s = scenarios.get(i);
+            SimulationResult r = results.get(i);
+            pw.println(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%s,%d,%.1f,%.3f,%d,%d,%d,%.2f,%d",
+                s.getLayout(), s.getWidth(), s.getHeight(), s.getCats(), s.getBatteryCapacity(), s.getSeed(),
+                r.getReason(), r.getTicks(), r.getSimulatedSeconds(), r.getElapsedNanos() / 1e6,
+                r.getMoves(), r.getCleanedCells(), r.getCleanableCells(), r.getCoveragePercentage(),
+                r.getBatteryLevel()));
+        }
+        pw.flush();
+    }
+
+    /**
+     * Tabla agregada por grupo (escenarios que solo difieren en la semilla):
+     * ejecuciones, cobertura media, ticks medios y recuento de motivos de parada.
+     */
+    public static String summarize(List<Scenario> scenarios, List<SimulationResult> results) {
+        Map<String, List<SimulationResult>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < scenarios.size(); i++) {
+            groups.computeIfAbsent(scenarios.get(i).group(), k -> new ArrayList<>()).add(results.get(i));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<SimulationResult>> group : groups.entrySet()) {
+            double coverage = 0;
+            double ticks = 0;
+            Map<SimulationResult.StopReason, Integer> reasons = new EnumMap<>(SimulationResult.StopReason.class);
+            for (SimulationResult r : group.getValue()) {
+                coverage += r.getCoveragePercentage();
+                ticks += r.getTicks();
+                reasons.merge(r.getReason(), 1, Integer::sum);
+            }
+            int n = group.getValue().size();
+            sb.append(String.format("%-45s runs=%-4d cobertura=%6.2f%% ticks=%10.0f %s%n",
+                group.getKey(), n, coverage / n, ticks / n, reasons));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Barrido de ejemplo: {@code java simulation.BatchRunner [repeticiones] [fichero.csv] [hilos]}.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        Path csv = args.length > 1 ? Paths.get(args[1]) : null;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<Scenario> scenarios = sweep(List.of(RoomGenerator.Layout.values()),
+            new int[]{30, 60}, new int[]{150, 400}, 2, repetitions, 42);
+        long started = System.nanoTime();
+        List<SimulationResult> results = new BatchRunner(threads).setMaxTicks(200_000).run(scenarios);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long ticks = results.stream().mapToLong(SimulationResult::getTicks).sum();
+        System.out.print(summarize(scenarios, results));
+        System.out.printf("%d simulaciones en %.2f s con %d hilos (%.1f sim/s, %.0f ticks/s)%n",
+            scenarios.size(), seconds, threads, scenarios.size() / seconds, ticks / seconds);
+        if (csv != null) {
+            try (Writer out = Files.newBufferedWriter(csv)) {
+                writeCsv(scenarios, results, out);
+            }
+            System.out.println("CSV escrito en " + csv);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package simulation;
+
+import maps.RoomGenerator;
+import model.Room;
+
+/**
+ * Descripción de una simulación independiente para el ejecutor por lotes:
+ * habitación generada (tamaño, distribución, gatos y semilla) y capacidad
+ * de batería. La misma descripción produce siempre la misma simulación.
+ */
+public final class Scenario {
+    private final int width;
+    private final int height;
+    private final RoomGenerator.Layout layout;
+    private final int cats;
+    private final int batteryCapacity;
+    private final long seed;
+
+    public Scenario(int width, int height, RoomGenerator.Layout layout, int cats, int batteryCapacity, long seed) {
+        this.width = width;
+        this.height = height;
+        this.layout = layout;
+        this.cats = cats;
+        this.batteryCapacity = batteryCapacity;
+        this.seed = seed;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public RoomGenerator.Layout getLayout() { return layout; }
+    public int getCats() { return cats; }
+    public int getBatteryCapacity() { return batteryCapacity; }
+    public long getSeed() { return seed; }
+
+    /**
+     * Genera la habitación del escenario (con su cargador y sus gatos).
+     */
+    public Room createRoom() {
+        return RoomGenerator.generate(width, height, new RoomGenerator.Options()
+            .layout(layout).cats(cats).seed(seed));
+    }
+
+    /**
+     * Clave de agrupación: todo salvo la semilla.
+     */
+    String group() {
+        return layout + " " + width + "x" + height + " gatos=" + cats + " batería=" + batteryCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return group() + " semilla=" + seed;
+    }
+}
@@ -0,0 +1,314 @@
+package simulation;
+
+import model.Log;
+import model.Position;
+import model.Room;
+import robot.Robot;
+import robot.RobotManager;
+import robot.state.IdleState;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Motor de simulación de paso fijo, independiente de Swing.
+ *
+ * Cada tick llama a {@link RobotManager#tick()} y avanza el reloj simulado
+ * un paso fijo (tickSeconds). Puede ir tan rápido como dé la CPU
+ * (targetRate = 0) o a un ritmo objetivo de ticks por segundo reales, ya sea
+ * en su propio hilo ({@link #start()}) o en el hilo que llama
+ * ({@link #run()}). Se detiene al limpiar la habitación, al agotarse la
+ * batería, si el robot se queda parado, al llegar a maxTicks o con
+ * {@link #stop()}.
+ *
+ * Mientras corre, la habitación y el robot solo se deben modificar desde el
+ * hilo del motor: las ediciones externas (clics en la GUI) se encolan con
+ * {@link #execute(Runnable)} y se aplican entre dos ticks. Las que son
+ * entradas de la simulación van por {@link #submit(SimulationInput)} para que
+ * se puedan grabar, y una reproducción las vuelve a programar en su tick con
+ * {@link #schedule(long, SimulationInput)}.
+ */
+public class SimulationEngine implements Executor {
+    private final RobotManager manager;
+    private final List<SimulationListener> listeners = new CopyOnWriteArrayList<>();
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    // Entradas programadas, en orden de tick (solo las toca el hilo del motor)
+    private final List<SimulationInput> scheduled = new ArrayList<>();
+    private long[] scheduledTicks = new long[16];
+    private int nextScheduled = 0;
+
+    private double targetRate = 0;
+    private double tickSeconds = 1.0;
+    private long maxTicks = Long.MAX_VALUE;
+    private boolean quiet = true;
+    private boolean fastForward = true;
+
+    private long tick = 0;
+    private Thread thread;
+    private volatile boolean stopRequested = false;
+    private SimulationResult result;
+
+    public SimulationEngine(RobotManager manager) {
+        this.manager = manager;
+    }
+
+    public RobotManager getManager() { return manager; }
+
+    /**
+     * Ticks por segundo real; 0 (por defecto) para ir tan rápido como se pueda.
+     */
+    public SimulationEngine setTargetRate(double ticksPerSecond) {
+        this.targetRate = Math.max(0, ticksPerSecond);
+        return this;
+    }
+
+    /**
+     * Segundos simulados que avanza cada tick (1 por defecto).
+     */
+    public SimulationEngine setTickSeconds(double seconds) {
+        this.tickSeconds = seconds;
+        return this;
+    }
+
+    public double getTickSeconds() { return tickSeconds; }
+
+    public SimulationEngine setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+        return this;
+    }
+
+    /**
+     * Si se silencian los mensajes de consola de la simulación en el hilo
+     * del motor (por defecto sí).
+     */
+    public SimulationEngine setQuiet(boolean quiet) {
+        this.quiet = quiet;
+        return this;
+    }
+
+    /**
+     * Si se saltan de golpe las fases en las que no se mueve nada (carga en
+     * el cargador), ver {@link RobotManager#fastForward(long)}. Por defecto
+     * sí; tras un salto onTick se llama una sola vez, con el tick final.
+     */
+    public SimulationEngine setFastForward(boolean fastForward) {
+        this.fastForward = fastForward;
+        return this;
+    }
+
+    public void addListener(SimulationListener listener) {
+        if (!listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public void removeListener(SimulationListener listener) {
+        listeners.remove(listener);
+    }
+
+    public long getTick() { return tick; }
+
+    public double getSimulatedSeconds() { return tick * tickSeconds; }
+
+    /**
+     * Resumen de la última ejecución terminada (null si aún no ha terminado ninguna).
+     */
+    public synchronized SimulationResult getResult() { return result; }
+
+    public synchronized boolean isRunning() { return thread != null; }
+
+    /**
+     * Arranca el motor en un hilo propio (daemon). No hace nada si ya corre.
+     */
+    public synchronized void start() {
+        if (thread != null) return;
+        stopRequested = false;
+        thread = new Thread(this::loop, "simulation-engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Ejecuta la simulación en el hilo actual hasta que se cumpla una
+     * condición de parada y devuelve el resumen.
+     */
+    public SimulationResult run() {
+        synchronized (this) {
+            if (thread != null) throw new IllegalStateException("El motor ya está en marcha");
+            stopRequested = false;
+            thread = Thread.currentThread();
+        }
+        loop();
+        return getResult();
+    }
+
+    /**
+     * Pide al motor que se detenga tras el tick en curso.
+     */
+    public void stop() {
+        stopRequested = true;
+        Thread t;
+        synchronized (this) { t = thread; }
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    /**
+     * Espera a que termine la ejecución en curso y devuelve su resumen.
+     */
+    public SimulationResult join() throws InterruptedException {
+        Thread t;
+        synchronized (this) { t = thread; }
+        if (t != null && t != Thread.currentThread()) t.join();
+        return getResult();
+    }
+
+    /**
+     * Aplica una modificación de la habitación o del robot en el hilo del
+     * motor, entre dos ticks. Si el motor no está en marcha se aplica ya.
+     */
+    @Override
+    public void execute(Runnable task) {
+        synchronized (this) {
+            if (thread != null) {
+                pending.add(task);
+                return;
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * Aplica una entrada externa en el hilo del motor, entre dos ticks (o ya,
+     * si no está en marcha), y avisa a los oyentes con onInput.
+     */
+    public void submit(SimulationInput input) {
+        execute(() -> apply(input));
+    }
+
+    /**
+     * Programa una entrada para aplicarla justo antes de ejecutar el tick
+     * indicado + 1 (como si se hubiera enviado con submit cuando getTick()
+     * valía tick). Las entradas se deben programar en orden de tick y antes
+     * de arrancar el motor.
+     */
+    public void schedule(long tick, SimulationInput input) {
+        int n = scheduled.size();
+        if (n > 0 && tick < scheduledTicks[n - 1]) throw new IllegalArgumentException("Entradas fuera de orden");
+        if (n == scheduledTicks.length) scheduledTicks = Arrays.copyOf(scheduledTicks, n * 2);
+        scheduledTicks[n] = tick;
+        scheduled.add(input);
+    }
+
+    private void apply(SimulationInput input) {
+        input.apply(manager);
+        for (SimulationListener l : listeners) l.onInput(this, tick, input);
+    }
+
+    private void applyScheduled() {
+        while (nextScheduled < scheduled.size() && scheduledTicks[nextScheduled] <= tick) {
+            apply(scheduled.get(nextScheduled++));
+        }
+    }
+
+    private void loop() {
+        boolean wasQuiet = Log.isQuiet();
+        Log.setQuiet(quiet);
+        SimulationResult.StopReason reason;
+        long started = System.nanoTime();
+        long period = targetRate > 0 ? (long) (1e9 / targetRate) : 0;
+        long deadline = started;
+        try {
+            while (true) {
+                runPending();
+                applyScheduled();
+                reason = stopReason();
+                if (reason != null) break;
+
+                // Un salto no puede pasar por encima de la siguiente entrada programada
+                long limit = maxTicks - tick;
+                if (nextScheduled < scheduled.size()) limit = Math.min(limit, scheduledTicks[nextScheduled] - tick);
+                long steps = fastForward ? manager.fastForward(limit) : 0;
+                if (steps == 0) {
+                    manager.tick();
+                    steps = 1;
+                }
+                tick += steps;
+                for (SimulationListener l : listeners) l.onTick(this, tick);
+
+                if (period > 0) {
+                    // Un salto respeta el ritmo: espera lo que habrían durado sus ticks
+                    deadline += period * steps;
+                    long wait;
+                    while (!stopRequested && (wait = deadline - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(this, wait);
+                    }
+                    // Si vamos muy retrasados no se intenta recuperar el tiempo perdido
+                    if (System.nanoTime() - deadline > period) deadline = System.nanoTime();
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            // Un fallo en el tick no deja el motor marcado como en marcha
+            synchronized (this) {
+                pending.clear();
+                thread = null;
+            }
+            throw e;
+        } finally {
+            Log.setQuiet(wasQuiet);
+        }
+
+        SimulationResult finished = summary(reason, System.nanoTime() - started);
+        synchronized (this) {
+            runPending();
+            result = finished;
+            thread = null;
+        }
+        for (SimulationListener l : listeners) l.onFinished(finished);
+    }
+
+    private void runPending() {
+        while (true) {
+            Runnable task;
+            synchronized (this) { task = pending.poll(); }
+            if (task == null) return;
+            task.run();
+        }
+    }
+
+    private SimulationResult.StopReason stopReason() {
+        if (stopRequested) return SimulationResult.StopReason.STOPPED;
+        Room room = manager.getRoom();
+        Robot robot = manager.getRobot();
+        if (room.isFullyCleaned()) return SimulationResult.StopReason.CLEANED;
+        if (robot.isBatteryEmpty() && !robot.getCurrent().equals(robot.getCharger())) {
+            return SimulationResult.StopReason.BATTERY_DEPLETED;
+        }
+        // IdleState es terminal: el gestor no vuelve a sacar al robot de él
+        if (robot.getCurrentState() instanceof IdleState) return SimulationResult.StopReason.IDLE;
+        if (tick >= maxTicks) return SimulationResult.StopReason.MAX_TICKS;
+        return null;
+    }
+
+    private SimulationResult summary(SimulationResult.StopReason reason, long elapsedNanos) {
+        Room room = manager.getRoom();
+        Robot robot = manager.getRobot();
+        return new SimulationResult(reason, tick, tick * tickSeconds, elapsedNanos,
+            manager.getRobotMoveCount(), room.countCleanedCells(), room.countCleanableCells(),
+            robot.getBatteryLevel());
+    }
+
+    /**
+     * Motor sin interfaz para un robot que arranca en el cargador de la habitación.
+     */
+    public static SimulationEngine forRoom(Room room, int batteryCapacity) {
+        Position charger = room.getChargerPosition();
+        if (charger == null) throw new IllegalArgumentException("La habitación no tiene cargador");
+        RobotManager manager = new RobotManager(room, charger, batteryCapacity);
+        manager.getRobot().setCharger(charger);
+        return new SimulationEngine(manager);
+    }
+}
@@ -0,0 +1,99 @@
+package simulation;
+
+import model.CatObstacleStrategy;
+import model.ChargerStrategy;
+import model.DynamicObstacle;
+import model.Log;
+import model.Position;
+import model.Room;
+import robot.RobotManager;
+
+/**
+ * Modificación externa de la simulación (las que hace el usuario con el
+ * ratón). Se aplican con {@link SimulationEngine#submit(SimulationInput)},
+ * que avisa a los oyentes para que se puedan grabar y reproducir.
+ *
+ * Aplicar una entrada es idempotente respecto a la parte que ya haya hecho
+ * la vista (marcar el obstáculo o el cargador en la rejilla).
+ */
+public final class SimulationInput {
+    public enum Kind {
+        /** Pone (value = 1) o quita (value = 0) un obstáculo fijo y descarta la ruta del robot. */
+        SET_OBSTACLE,
+        /** Mueve el cargador a la celda. */
+        PLACE_CHARGER,
+        /** Añade un gato en la celda. */
+        PLACE_CAT
+    }
+
+    private final Kind kind;
+    private final int x;
+    private final int y;
+    private final int value;
+
+    public SimulationInput(Kind kind, int x, int y, int value) {
+        this.kind = kind;
+        this.x = x;
+        this.y = y;
+        this.value = value;
+    }
+
+    public static SimulationInput setObstacle(Position p, boolean obstacle) {
+        return new SimulationInput(Kind.SET_OBSTACLE, p.x, p.y, obstacle ? 1 : 0);
+    }
+
+    public static SimulationInput placeCharger(Position p) {
+        return new SimulationInput(Kind.PLACE_CHARGER, p.x, p.y, 0);
+    }
+
+    public static SimulationInput placeCat(Position p) {
+        return new SimulationInput(Kind.PLACE_CAT, p.x, p.y, 0);
+    }
+
+    public Kind getKind() { return kind; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getValue() { return value; }
+
+    /**
+     * Aplica la entrada a la habitación y al robot del gestor.
+     */
+    public void apply(RobotManager manager) {
+        Room room = manager.getRoom();
+        if (!room.inBounds(x, y)) return;
+        Position p = room.position(x, y);
+        switch (kind) {
+            case SET_OBSTACLE:
+                room.setObstacle(p, value != 0);
+                manager.getRobot().setPath(null);
+                break;
+            case PLACE_CHARGER:
+                room.setCharger(p, true);
+                Position oldCharger = room.getChargerPosition();
+                if (oldCharger != null) room.removeDynamicObstacleAt(oldCharger);
+                room.addDynamicObstacle(new DynamicObstacle(p, new ChargerStrategy()));
+                manager.getRobot().setCharger(p);
+                Log.println("⚡ Cargador colocado en " + p);
+                break;
+            case PLACE_CAT:
+                room.addDynamicObstacle(new DynamicObstacle(p, new CatObstacleStrategy()));
+                Log.println("🐱 Gato colocado en " + p);
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + x + " " + y + " " + value;
+    }
+
+    /**
+     * Lee una entrada con el formato de {@link #toString()}.
+     */
+    public static SimulationInput parse(String text) {
+        String[] parts = text.trim().split("\\s+");
+        if (parts.length != 4) throw new IllegalArgumentException("Entrada no válida: " + text);
+        return new SimulationInput(Kind.valueOf(parts[0]), Integer.parseInt(parts[1]),
+            Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+    }
+}
@@ -0,0 +1,23 @@
+package simulation;
+
+/**
+ * Observador del motor de simulación. Los métodos se invocan en el hilo del
+ * motor: quien actualice componentes Swing debe pasar por el EDT.
+ */
+public interface SimulationListener {
+    /**
+     * Se invoca tras cada tick.
+     */
+    default void onTick(SimulationEngine engine, long tick) {}
+
+    /**
+     * Se invoca tras aplicar una entrada externa, con el tick que se iba a
+     * ejecutar a continuación (la entrada queda entre los ticks tick y tick + 1).
+     */
+    default void onInput(SimulationEngine engine, long tick, SimulationInput input) {}
+
+    /**
+     * Se invoca una vez al terminar la ejecución, con su resumen.
+     */
+    default void onFinished(SimulationResult result) {}
+}
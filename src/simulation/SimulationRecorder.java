@@ -0,0 +1,184 @@
+package simulation;
+
+import maps.RoomFile;
+import model.CellStorage;
+import model.DynamicObstacle;
+import model.ObstacleStrategy;
+import model.Position;
+import model.Room;
+import robot.Robot;
+import robot.RobotManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Graba una simulación para reproducirla después tick a tick (ver
+ * {@link SimulationReplay}): guarda el estado inicial de la habitación y las
+ * entradas externas con su tick, y al pararse el motor el tick final y una
+ * huella del estado para comprobar que la reproducción coincide.
+ *
+ * Una grabación es un directorio con:
+ * <pre>
+ * room.map               habitación inicial (formato de {@link RoomFile})
+ * recording.properties   semillas, robot, batería, tick final y huella
+ * inputs.txt             una entrada por línea: tick KIND x y value
+ * </pre>
+ * Hay que empezar a grabar antes del primer tick del motor: el estado del
+ * robot no se guarda, la reproducción lo vuelve a crear desde el principio.
+ */
+public class SimulationRecorder implements SimulationListener, AutoCloseable {
+    static final String ROOM_FILE = "room.map";
+    static final String PROPERTIES_FILE = "recording.properties";
+    static final String INPUTS_FILE = "inputs.txt";
+    static final int VERSION = 1;
+
+    private final SimulationEngine engine;
+    private final Path directory;
+    private final Properties header = new Properties();
+    private final List<String> inputs = new ArrayList<>();
+
+    private SimulationRecorder(SimulationEngine engine, Path directory) {
+        this.engine = engine;
+        this.directory = directory;
+    }
+
+    /**
+     * Empieza a grabar el motor en el directorio (se crea si no existe).
+     * Vuelve a sembrar la habitación con su propia semilla para que el azar
+     * de los obstáculos parta de un estado conocido, y guarda también la de
+     * los obstáculos que traen semilla propia (ownSeeds=orden:semilla,...).
+     */
+    public static SimulationRecorder start(SimulationEngine engine, Path directory) throws IOException {
+        RobotManager manager = engine.getManager();
+        if (engine.isRunning() || engine.getTick() != 0 || manager.getRobotMoveCount() != 0) {
+            throw new IllegalStateException("La grabación debe empezar antes del primer tick");
+        }
+        Room room = manager.getRoom();
+        Robot robot = manager.getRobot();
+        room.setSeed(room.getSeed());
+
+        Files.createDirectories(directory);
+        RoomFile.save(room, directory.resolve(ROOM_FILE));
+        SimulationRecorder recorder = new SimulationRecorder(engine, directory);
+        Properties h = recorder.header;
+        h.setProperty("version", Integer.toString(VERSION));
+        h.setProperty("seed", Long.toString(room.getSeed()));
+        h.setProperty("ownSeeds", ownSeeds(room));
+        h.setProperty("startX", Integer.toString(robot.getCurrent().x));
+        h.setProperty("startY", Integer.toString(robot.getCurrent().y));
+        h.setProperty("battery", Integer.toString(robot.getMaxBattery()));
+        if (robot.getCharger() != null) {
+            h.setProperty("chargerX", Integer.toString(robot.getCharger().x));
+            h.setProperty("chargerY", Integer.toString(robot.getCharger().y));
+        }
+        h.setProperty("tickSeconds", Double.toString(engine.getTickSeconds()));
+        recorder.save();
+        engine.addListener(recorder);
+        return recorder;
+    }
+
+    private static String ownSeeds(Room room) {
+        StringBuilder seeds = new StringBuilder();
+        List<DynamicObstacle> obstacles = room.getDynamicObstacles();
+        for (int i = 0; i < obstacles.size(); i++) {
+            ObstacleStrategy strategy = obstacles.get(i).getStrategy();
+            if (!strategy.hasOwnSeed()) continue;
+            if (seeds.length() > 0) seeds.append(',');
+            seeds.append(i).append(':').append(strategy.getOwnSeed());
+        }
+        return seeds.toString();
+    }
+
+    @Override
+    public void onInput(SimulationEngine source, long tick, SimulationInput input) {
+        synchronized (inputs) {
+            inputs.add(tick + " " + input);
+        }
+    }
+
+    @Override
+    public void onFinished(SimulationResult result) {
+        try {
+            save();
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar la grabación en " + directory + ": " + e);
+        }
+    }
+
+    /**
+     * Escribe las entradas recibidas y el estado actual como final de la
+     * grabación. Se llama solo al pararse el motor; con el motor en marcha
+     * no se debe llamar.
+     */
+    public void save() throws IOException {
+        RobotManager manager = engine.getManager();
+        List<String> lines;
+        synchronized (inputs) {
+            lines = new ArrayList<>(inputs);
+        }
+        header.setProperty("endTick", Long.toString(engine.getTick()));
+        header.setProperty("endInputs", Integer.toString(lines.size()));
+        header.setProperty("fingerprint", Long.toHexString(fingerprint(manager)));
+        Files.write(directory.resolve(INPUTS_FILE), lines, StandardCharsets.UTF_8);
+        try (Writer out = Files.newBufferedWriter(directory.resolve(PROPERTIES_FILE), StandardCharsets.UTF_8)) {
+            header.store(out, "Grabación de simulación");
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Deja de grabar y guarda el estado final (con el motor parado).
+     */
+    @Override
+    public void close() throws IOException {
+        if (engine.isRunning()) throw new IllegalStateException("Hay que parar el motor antes de cerrar la grabación");
+        engine.removeListener(this);
+        save();
+    }
+
+    /**
+     * Huella de 64 bits del estado de la simulación: planos de la rejilla,
+     * obstáculos dinámicos y robot (posición, batería, movimientos y estado).
+     * Dos ejecuciones con la misma huella han llegado al mismo estado.
+     */
+    public static long fingerprint(RobotManager manager) {
+        Room room = manager.getRoom();
+        Robot robot = manager.getRobot();
+        long h = mix(room.getWidth(), room.getHeight());
+        for (CellStorage.Plane plane : CellStorage.Plane.values()) {
+            for (int y = 0; y < room.getHeight(); y++) {
+                for (int x = 0; x < room.getWidth(); x += 64) {
+                    h = mix(h, room.getWord(plane, x, y));
+                }
+            }
+        }
+        for (DynamicObstacle obstacle : room.getDynamicObstacles()) {
+            Position p = obstacle.getPosition();
+            h = mix(h, obstacle.getType().ordinal());
+            h = mix(h, Position.pack(p.x, p.y));
+        }
+        h = mix(h, Position.pack(robot.getCurrent().x, robot.getCurrent().y));
+        h = mix(h, robot.getBatteryLevel());
+        h = mix(h, manager.getRobotMoveCount());
+        h = mix(h, robot.getCurrentState() != null ? robot.getCurrentState().getId() : -1);
+        return h;
+    }
+
+    /** Mezcla de estado y valor (finalizador de SplitMix64). */
+    private static long mix(long h, long value) {
+        long z = h + value * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
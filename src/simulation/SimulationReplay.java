@@ -0,0 +1,149 @@
+package simulation;
+
+import maps.RoomFile;
+import model.Position;
+import model.Room;
+import robot.RobotManager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reproduce una grabación de {@link SimulationRecorder}: reconstruye la
+ * habitación inicial con su semilla y el robot, y programa en el motor cada
+ * entrada en su tick. Como la simulación es determinista, llega al mismo
+ * estado tick a tick que la ejecución grabada, ya sea de una vez
+ * ({@link #run()}) o avanzando hasta un tick concreto ({@link #runTo(long)}).
+ */
+public class SimulationReplay {
+    private final SimulationEngine engine;
+    private final long endTick;
+    private final long expectedFingerprint;
+
+    private SimulationReplay(SimulationEngine engine, long endTick, long expectedFingerprint) {
+        this.engine = engine;
+        this.endTick = endTick;
+        this.expectedFingerprint = expectedFingerprint;
+    }
+
+    /**
+     * Carga la grabación del directorio y prepara su motor (parado, en el tick 0).
+     */
+    public static SimulationReplay load(Path directory) throws IOException {
+        Properties header = new Properties();
+        try (Reader in = Files.newBufferedReader(directory.resolve(SimulationRecorder.PROPERTIES_FILE),
+                StandardCharsets.UTF_8)) {
+            header.load(in);
+        }
+        if (!Integer.toString(SimulationRecorder.VERSION).equals(header.getProperty("version"))) {
+            throw new IOException("Versión de grabación no soportada: " + header.getProperty("version"));
+        }
+        try {
+            Room room = RoomFile.load(directory.resolve(SimulationRecorder.ROOM_FILE), ownSeeds(header));
+            room.setSeed(Long.parseLong(header.getProperty("seed")));
+            Position start = new Position(intProperty(header, "startX"), intProperty(header, "startY"));
+            RobotManager manager = new RobotManager(room, start, intProperty(header, "battery"));
+            if (header.getProperty("chargerX") != null) {
+                manager.getRobot().setCharger(room.position(intProperty(header, "chargerX"),
+                    intProperty(header, "chargerY")));
+            }
+            SimulationEngine engine = new SimulationEngine(manager)
+                .setTickSeconds(Double.parseDouble(header.getProperty("tickSeconds")));
+
+            // Solo las entradas anteriores a la huella final
+            List<String> lines = Files.readAllLines(directory.resolve(SimulationRecorder.INPUTS_FILE),
+                StandardCharsets.UTF_8);
+            int count = Math.min(lines.size(), intProperty(header, "endInputs"));
+            for (int i = 0; i < count; i++) {
+                String line = lines.get(i).trim();
+                int space = line.indexOf(' ');
+                if (space < 0) throw new IOException("Entrada no válida en la línea " + (i + 1) + ": " + line);
+                engine.schedule(Long.parseLong(line.substring(0, space)), SimulationInput.parse(line.substring(space + 1)));
+            }
+            return new SimulationReplay(engine, Long.parseLong(header.getProperty("endTick")),
+                Long.parseUnsignedLong(header.getProperty("fingerprint"), 16));
+        } catch (RuntimeException e) {
+            // Propiedades ausentes o mal formadas
+            throw new IOException("Grabación corrupta en " + directory + ": " + e, e);
+        }
+    }
+
+    /**
+     * Semillas propias de los obstáculos por su orden en la habitación.
+     */
+    private static Map<Integer, Long> ownSeeds(Properties header) {
+        Map<Integer, Long> seeds = new HashMap<>();
+        for (String entry : header.getProperty("ownSeeds", "").split(",")) {
+            if (entry.isEmpty()) continue;
+            int colon = entry.indexOf(':');
+            seeds.put(Integer.parseInt(entry.substring(0, colon)), Long.parseLong(entry.substring(colon + 1)));
+        }
+        return seeds;
+    }
+
+    private static int intProperty(Properties header, String key) {
+        return Integer.parseInt(header.getProperty(key));
+    }
+
+    /**
+     * Motor de la reproducción, para añadir oyentes, ajustar el ritmo o el
+     * salto de fases quietas antes de ejecutar.
+     */
+    public SimulationEngine getEngine() { return engine; }
+
+    public RobotManager getManager() { return engine.getManager(); }
+
+    /** Tick en el que terminó la grabación. */
+    public long getEndTick() { return endTick; }
+
+    public long getExpectedFingerprint() { return expectedFingerprint; }
+
+    /**
+     * Reproduce hasta el final de la grabación, en el hilo actual.
+     */
+    public SimulationResult run() {
+        return runTo(endTick);
+    }
+
+    /**
+     * Avanza la reproducción (en el hilo actual) hasta el tick indicado, o
+     * antes si la simulación se detiene sola. Se puede llamar varias veces
+     * con ticks crecientes para ir paso a paso.
+     */
+    public SimulationResult runTo(long tick) {
+        return engine.setMaxTicks(tick).run();
+    }
+
+    /**
+     * Si la reproducción está en el tick final de la grabación con la misma huella.
+     */
+    public boolean matchesRecording() {
+        return engine.getTick() == endTick && SimulationRecorder.fingerprint(getManager()) == expectedFingerprint;
+    }
+
+    /**
+     * Reproduce una grabación: {@code java simulation.SimulationReplay directorio [tick]}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Uso: java simulation.SimulationReplay directorio [tick]");
+            System.exit(2);
+        }
+        SimulationReplay replay = load(Paths.get(args[0]));
+        long target = args.length > 1 ? Long.parseLong(args[1]) : replay.getEndTick();
+        SimulationResult result = replay.runTo(target);
+        System.out.println(result);
+        System.out.printf("Huella: %016x%n", SimulationRecorder.fingerprint(replay.getManager()));
+        if (target == replay.getEndTick()) {
+            System.out.println(replay.matchesRecording() ? "Coincide con la grabación" : "NO coincide con la grabación");
+        }
+    }
+}
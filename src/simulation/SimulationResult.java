@@ -0,0 +1,73 @@
+package simulation;
+
+/**
+ * Resumen inmutable de una ejecución del motor de simulación.
+ */
+public final class SimulationResult {
+    /**
+     * Motivo por el que terminó la ejecución.
+     */
+    public enum StopReason {
+        /** Todas las celdas limpiables están limpias. */
+        CLEANED,
+        /** Batería agotada lejos del cargador. */
+        BATTERY_DEPLETED,
+        /** El robot se quedó parado con celdas sucias (inaccesibles o sin ruta al cargador). */
+        IDLE,
+        /** Se alcanzó el máximo de ticks. */
+        MAX_TICKS,
+        /** Detenido desde fuera con stop(). */
+        STOPPED,
+        /** La simulación lanzó una excepción (solo en ejecuciones por lotes). */
+        FAILED
+    }
+
+    private final StopReason reason;
+    private final long ticks;
+    private final double simulatedSeconds;
+    private final long elapsedNanos;
+    private final int moves;
+    private final long cleanedCells;
+    private final long cleanableCells;
+    private final int batteryLevel;
+
+    public SimulationResult(StopReason reason, long ticks, double simulatedSeconds, long elapsedNanos,
+                            int moves, long cleanedCells, long cleanableCells, int batteryLevel) {
+        this.reason = reason;
+        this.ticks = ticks;
+        this.simulatedSeconds = simulatedSeconds;
+        this.elapsedNanos = elapsedNanos;
+        this.moves = moves;
+        this.cleanedCells = cleanedCells;
+        this.cleanableCells = cleanableCells;
+        this.batteryLevel = batteryLevel;
+    }
+
+    public StopReason getReason() { return reason; }
+    public long getTicks() { return ticks; }
+    public double getSimulatedSeconds() { return simulatedSeconds; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public int getMoves() { return moves; }
+    public long getCleanedCells() { return cleanedCells; }
+    public long getCleanableCells() { return cleanableCells; }
+    public int getBatteryLevel() { return batteryLevel; }
+
+    public double getCoveragePercentage() {
+        return cleanableCells == 0 ? 100.0 : cleanedCells * 100.0 / cleanableCells;
+    }
+
+    /**
+     * Ticks ejecutados por segundo de tiempo real.
+     */
+    public double getTicksPerSecond() {
+        return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s tras %d ticks (%.1f s simulados, %.1f ms reales, %.0f ticks/s) | "
+                + "movimientos: %d | cobertura: %d/%d (%.1f%%) | batería: %d",
+            reason, ticks, simulatedSeconds, elapsedNanos / 1e6, getTicksPerSecond(),
+            moves, cleanedCells, cleanableCells, getCoveragePercentage(), batteryLevel);
+    }
+}